@@ -13,6 +13,7 @@
  */
 package com.ibm.cloud.cloudant.kafka;
 
+import com.ibm.cloud.cloudant.kafka.utils.InterfaceConst;
 import com.ibm.cloud.cloudant.kafka.utils.JavaCloudantUtil;
 import com.ibm.cloud.cloudant.kafka.caching.CachedClientManager;
 import com.ibm.cloud.cloudant.kafka.tasks.SinkConnectorConfig;
@@ -22,7 +23,7 @@ import org.apache.kafka.common.config.Config;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.connect.connector.Task;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -53,12 +54,19 @@ public class SinkConnector extends org.apache.kafka.connect.sink.SinkConnector {
 
     @Override
     public List<Map<String, String>> taskConfigs(int maxTasks) {
-        return Collections.nCopies(maxTasks, new HashMap<>(configProperties));
+        List<Map<String, String>> taskConfigs = new ArrayList<>(maxTasks);
+        for (int i = 0; i < maxTasks; i++) {
+            Map<String, String> taskConfig = new HashMap<>(configProperties);
+            // lets each task keep its own state
+            taskConfig.put(InterfaceConst.TASK_INDEX, String.valueOf(i));
+            taskConfigs.add(taskConfig);
+        }
+        return taskConfigs;
     }
 
     @Override
     public void stop() {
-        CachedClientManager.removeInstance(configProperties);
+        SinkConnectorConfig.accountsProperties(configProperties).forEach(CachedClientManager::removeInstance);
     }
 
     @Override
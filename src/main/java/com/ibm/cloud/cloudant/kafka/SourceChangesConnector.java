@@ -1,5 +1,5 @@
 /*
- * Copyright © 2016, 2022 IBM Corp. All rights reserved.
+ * Copyright © 2016, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -13,11 +13,13 @@
  */
 package com.ibm.cloud.cloudant.kafka;
 
+import com.ibm.cloud.cloudant.kafka.utils.InterfaceConst;
 import com.ibm.cloud.cloudant.kafka.utils.JavaCloudantUtil;
 import com.ibm.cloud.cloudant.kafka.caching.CachedClientManager;
 import com.ibm.cloud.cloudant.kafka.tasks.SourceChangesConnectorConfig;
 import com.ibm.cloud.cloudant.kafka.validators.ConfigValidator;
 import com.ibm.cloud.cloudant.kafka.tasks.SourceChangesTask;
+import com.ibm.cloud.cloudant.v1.Cloudant;
 import org.apache.kafka.common.config.Config;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.connect.connector.Task;
@@ -25,10 +27,16 @@ import org.apache.kafka.connect.source.SourceConnector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 public class SourceChangesConnector extends SourceConnector {
 
@@ -36,6 +44,16 @@ public class SourceChangesConnector extends SourceConnector {
 
     private Map<String, String> configProperties;
 
+    // the databases to read, from the configuration and those found with cloudant.db.pattern
+    private volatile SortedSet<String> databases;
+
+    private SortedSet<String> configuredDatabases;
+
+    private Pattern dbPattern;
+
+    // checks for databases matching cloudant.db.pattern
+    private ScheduledExecutorService discovery;
+
     @Override
     public ConfigDef config() {
         return SourceChangesConnectorConfig.CONFIG_DEF;
@@ -44,10 +62,42 @@ public class SourceChangesConnector extends SourceConnector {
     @Override
     public void start(Map<String, String> props) {
         configProperties = props;
+        configuredDatabases = new TreeSet<>();
+        configuredDatabases.add(props.get(InterfaceConst.DB));
+        databases = configuredDatabases;
+        if (!props.containsKey(InterfaceConst.DBS) && !props.containsKey(InterfaceConst.DB_PATTERN)) {
+            // just the one database
+            return;
+        }
+        SourceChangesConnectorConfig config = new SourceChangesConnectorConfig(props);
+        configuredDatabases.addAll(config.getList(InterfaceConst.DBS));
+        String pattern = config.getString(InterfaceConst.DB_PATTERN);
+        if (pattern != null) {
+            dbPattern = Pattern.compile(pattern);
+            Cloudant service = CachedClientManager.getInstance(props);
+            try {
+                databases = listDatabases(service);
+            } catch (RuntimeException re) {
+                // start with the configured databases, the others are added when they can be listed
+                LOG.warn("Could not list the databases, trying again in the background", re);
+            }
+            discovery = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "cloudant-db-discovery-" + props.get("name"));
+                t.setDaemon(true);
+                return t;
+            });
+            long interval = config.getLong(InterfaceConst.DB_DISCOVERY_INTERVAL_MS);
+            discovery.scheduleWithFixedDelay(() -> discover(service), interval, interval, TimeUnit.MILLISECONDS);
+        }
+        LOG.info("Reading changes from {} databases", databases.size());
     }
 
     @Override
     public void stop() {
+        if (discovery != null) {
+            discovery.shutdownNow();
+            discovery = null;
+        }
         CachedClientManager.removeInstance(configProperties);
     }
 
@@ -58,10 +108,57 @@ public class SourceChangesConnector extends SourceConnector {
 
     @Override
     public List<Map<String, String>> taskConfigs(int maxTasks) {
-        if (maxTasks > 1) {
-            LOG.warn("tasks.max requested was {}, but only 1 task supported", maxTasks);
+        List<String> dbs = new ArrayList<>(databases);
+        List<Map<String, String>> taskConfigs = new ArrayList<>(maxTasks);
+        if (dbs.size() == 1) {
+            for (int i = 0; i < maxTasks; i++) {
+                Map<String, String> taskConfig = new HashMap<>(configProperties);
+                // each task produces the changes to its share of the documents
+                taskConfig.put(InterfaceConst.TASK_INDEX, String.valueOf(i));
+                taskConfig.put(InterfaceConst.TASK_COUNT, String.valueOf(maxTasks));
+                taskConfigs.add(taskConfig);
+            }
+            return taskConfigs;
+        }
+        // each task reads the changes of its share of the databases
+        int tasks = Math.min(maxTasks, dbs.size());
+        for (int i = 0; i < tasks; i++) {
+            List<String> taskDbs = new ArrayList<>(dbs.size() / tasks + 1);
+            for (int db = i; db < dbs.size(); db += tasks) {
+                taskDbs.add(dbs.get(db));
+            }
+            Map<String, String> taskConfig = new HashMap<>(configProperties);
+            taskConfig.put(InterfaceConst.TASK_INDEX, String.valueOf(i));
+            taskConfig.put(InterfaceConst.TASK_DBS, String.join(",", taskDbs));
+            taskConfigs.add(taskConfig);
+        }
+        return taskConfigs;
+    }
+
+    // the configured databases and those which match the pattern
+    private SortedSet<String> listDatabases(Cloudant service) {
+        SortedSet<String> dbs = new TreeSet<>(configuredDatabases);
+        for (String db : service.getAllDbs().execute().getResult()) {
+            if (dbPattern.matcher(db).matches()) {
+                dbs.add(db);
+            }
+        }
+        return dbs;
+    }
+
+    // reconfigure the tasks if databases matching the pattern have been created or deleted
+    private void discover(Cloudant service) {
+        try {
+            SortedSet<String> found = listDatabases(service);
+            if (!found.equals(databases)) {
+                LOG.info("Databases changed, reading changes from {} databases", found.size());
+                databases = found;
+                context.requestTaskReconfiguration();
+            }
+        } catch (RuntimeException re) {
+            // try again next time
+            LOG.warn("Could not check for new databases", re);
         }
-        return Collections.nCopies(maxTasks, new HashMap<>(configProperties));
     }
 
     @Override
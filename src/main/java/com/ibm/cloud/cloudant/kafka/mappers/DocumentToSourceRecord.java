@@ -28,6 +28,7 @@ import com.ibm.cloud.cloudant.kafka.utils.CloudantConst;
 import com.ibm.cloud.cloudant.kafka.utils.NumberSafeMap;
 import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
 import com.ibm.cloud.cloudant.v1.model.Document;
+import com.ibm.cloud.cloudant.v1.model.Revisions;
 
 public class DocumentToSourceRecord implements BiFunction<String, ChangesResultItem, SourceRecord> {
 
@@ -51,7 +52,8 @@ public class DocumentToSourceRecord implements BiFunction<String, ChangesResultI
         ID("_id", Document::getId),
         LOCAL_SEQ("_local_seq", Document::getLocalSeq),
         REV("_rev", Document::getRev),
-        REVISIONS("_revisions", Document::getRevisions),
+        // as a map, as the converters can't serialize the model class
+        REVISIONS("_revisions", d -> revisionsToMap(d.getRevisions())),
         REVS_INFO("_revs_info", Document::getRevsInfo);
 
         private final String propertyName;
@@ -72,6 +74,16 @@ public class DocumentToSourceRecord implements BiFunction<String, ChangesResultI
         }
     }
 
+    private static Map<String, Object> revisionsToMap(Revisions revisions) {
+        if (revisions == null) {
+            return null;
+        }
+        Map<String, Object> map = new NumberSafeMap(2);
+        map.put("start", revisions.start());
+        map.put("ids", revisions.ids());
+        return map;
+    }
+
     private final Map<String, String> partition;
     private final Function<String, Map<String, String>> offsetFunction;
 
@@ -0,0 +1,314 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.mappers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// A document which is already JSON, as a String or byte[] record value.
+// The whole value is checked to be valid JSON, as one invalid document fails the whole _bulk_docs request it is in,
+// but only the top level of the object is scanned to find its members; nested values are never converted.
+public final class RawJsonDocument {
+
+    private static final Gson gson = new Gson();
+
+    private final byte[] json;
+
+    // the top level members: key start (at the quote), key end (after the quote), value start, value end
+    private int[] members = new int[16];
+    private int memberCount = 0;
+
+    /**
+     * @param value a String or byte[] record value
+     * @throws IllegalArgumentException if the value isn't a valid JSON object
+     */
+    public RawJsonDocument(Object value) {
+        if (value instanceof byte[]) {
+            this.json = (byte[]) value;
+        } else if (value instanceof String) {
+            this.json = ((String) value).getBytes(StandardCharsets.UTF_8);
+        } else {
+            throw new IllegalArgumentException(String.format("Type %s is not raw JSON", value.getClass()));
+        }
+        validate();
+        scan();
+    }
+
+    public static boolean isRaw(Object value) {
+        return value instanceof byte[] || value instanceof String;
+    }
+
+    public int length() {
+        return json.length;
+    }
+
+    public boolean isEmpty() {
+        return memberCount == 0;
+    }
+
+    /**
+     * @param name member name
+     * @return the value of the top level member with this name if it is a string, otherwise null
+     */
+    public String getString(String name) {
+        int member = find(name);
+        if (member < 0 || json[members[member * 4 + 2]] != '"') {
+            return null;
+        }
+        int start = members[member * 4 + 2];
+        int end = members[member * 4 + 3];
+        try {
+            return gson.fromJson(new String(json, start, end - start, StandardCharsets.UTF_8), String.class);
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write the document, replacing the values of some top level members.
+     *
+     * @param overrides top level members to write with these string values instead, or leave out if the value is null
+     * @param out where to write the document
+     * @throws IOException if the document could not be written
+     */
+    public void writeTo(Map<String, String> overrides, OutputStream out) throws IOException {
+        if (overrides.isEmpty()) {
+            out.write(json);
+            return;
+        }
+        out.write('{');
+        boolean first = true;
+        for (Map.Entry<String, String> override : overrides.entrySet()) {
+            if (override.getValue() != null) {
+                if (!first) {
+                    out.write(',');
+                }
+                out.write(gson.toJson(override.getKey()).getBytes(StandardCharsets.UTF_8));
+                out.write(':');
+                out.write(gson.toJson(override.getValue()).getBytes(StandardCharsets.UTF_8));
+                first = false;
+            }
+        }
+        for (int member = 0; member < memberCount; member++) {
+            if (!overridden(member, overrides)) {
+                if (!first) {
+                    out.write(',');
+                }
+                int start = members[member * 4];
+                out.write(json, start, members[member * 4 + 3] - start);
+                first = false;
+            }
+        }
+        out.write('}');
+    }
+
+    private boolean overridden(int member, Map<String, String> overrides) {
+        for (String name : overrides.keySet()) {
+            if (keyEquals(member, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int find(String name) {
+        // the last one wins if there are duplicates
+        for (int member = memberCount - 1; member >= 0; member--) {
+            if (keyEquals(member, name)) {
+                return member;
+            }
+        }
+        return -1;
+    }
+
+    // compares the raw key, so names with escapes in them never match
+    private boolean keyEquals(int member, String name) {
+        int start = members[member * 4] + 1;
+        int length = members[member * 4 + 1] - 1 - start;
+        if (length != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (json[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // read through every value, strictly, without keeping any of them
+    private void validate() {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8))) {
+            reader.setStrictness(Strictness.STRICT);
+            skip(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw notAnObject();
+            }
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            throw new IllegalArgumentException("Value is not valid JSON: " + e.getMessage(), e);
+        }
+    }
+
+    // unlike JsonReader.skipValue, reading strings and names checks their escapes
+    private static void skip(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    reader.nextName();
+                    skip(reader);
+                }
+                reader.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    skip(reader);
+                }
+                reader.endArray();
+                break;
+            case BOOLEAN:
+                reader.nextBoolean();
+                break;
+            case NULL:
+                reader.nextNull();
+                break;
+            default:
+                // strings and numbers
+                reader.nextString();
+                break;
+        }
+    }
+
+    private void scan() {
+        int i = skipWhitespace(0);
+        expect(i, '{');
+        i = skipWhitespace(i + 1);
+        if (at(i) != '}') {
+            while (true) {
+                expect(i, '"');
+                int keyStart = i;
+                int keyEnd = skipString(i);
+                i = skipWhitespace(keyEnd);
+                expect(i, ':');
+                int valueStart = skipWhitespace(i + 1);
+                int valueEnd = skipValue(valueStart);
+                addMember(keyStart, keyEnd, valueStart, valueEnd);
+                i = skipWhitespace(valueEnd);
+                if (at(i) == ',') {
+                    i = skipWhitespace(i + 1);
+                } else {
+                    expect(i, '}');
+                    break;
+                }
+            }
+        }
+        if (skipWhitespace(i + 1) != json.length) {
+            throw notAnObject();
+        }
+    }
+
+    private void addMember(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        if ((memberCount + 1) * 4 > members.length) {
+            int[] grown = new int[members.length * 2];
+            System.arraycopy(members, 0, grown, 0, members.length);
+            members = grown;
+        }
+        members[memberCount * 4] = keyStart;
+        members[memberCount * 4 + 1] = keyEnd;
+        members[memberCount * 4 + 2] = valueStart;
+        members[memberCount * 4 + 3] = valueEnd;
+        memberCount++;
+    }
+
+    // returns the index after the value starting at i
+    private int skipValue(int i) {
+        byte b = at(i);
+        if (b == '"') {
+            return skipString(i);
+        } else if (b == '{' || b == '[') {
+            int depth = 0;
+            do {
+                b = at(i);
+                if (b == '"') {
+                    i = skipString(i);
+                    continue;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+                i++;
+            } while (depth > 0);
+            return i;
+        } else {
+            // number, true, false or null
+            int start = i;
+            while (i < json.length && json[i] != ',' && json[i] != '}' && json[i] != ']' && !isWhitespace(json[i])) {
+                i++;
+            }
+            if (i == start) {
+                throw notAnObject();
+            }
+            return i;
+        }
+    }
+
+    // returns the index after the string starting with the quote at i
+    private int skipString(int i) {
+        i++;
+        while (at(i) != '"') {
+            i += at(i) == '\\' ? 2 : 1;
+        }
+        return i + 1;
+    }
+
+    private int skipWhitespace(int i) {
+        while (i < json.length && isWhitespace(json[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private byte at(int i) {
+        if (i >= json.length) {
+            throw notAnObject();
+        }
+        return json[i];
+    }
+
+    private void expect(int i, char c) {
+        if (at(i) != c) {
+            throw notAnObject();
+        }
+    }
+
+    private static IllegalArgumentException notAnObject() {
+        return new IllegalArgumentException("Value is not a JSON object");
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.mappers;
+
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.header.Header;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Fills in a template like "${topic}" or "orders-${header:region}" for a record, eg to name the database it is written
+// to. Placeholders are the record's topic, the value of a header, or the value of a top level string or number field
+// of the record's value. Records that any placeholder has no value for get the default value instead.
+public class SinkRecordTemplate implements Function<SinkRecord, String> {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^}]*)}");
+    private static final String TOPIC = "topic";
+    private static final String HEADER_PREFIX = "header:";
+    private static final String FIELD_PREFIX = "field:";
+
+    private final String defaultValue;
+    private final List<Function<SinkRecord, String>> parts = new ArrayList<>();
+
+    /**
+     * @param template the template, or null to give every record the default value
+     * @param defaultValue value for records the template can't be filled in for
+     * @throws IllegalArgumentException if the template has an unknown placeholder
+     */
+    public SinkRecordTemplate(String template, String defaultValue) {
+        this.defaultValue = defaultValue;
+        if (template == null) {
+            parts.add(record -> defaultValue);
+            return;
+        }
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        int end = 0;
+        while (matcher.find()) {
+            addLiteral(template.substring(end, matcher.start()));
+            parts.add(placeholder(matcher.group(1)));
+            end = matcher.end();
+        }
+        String literal = template.substring(end);
+        if (literal.contains("${")) {
+            throw new IllegalArgumentException("Unterminated placeholder in " + template);
+        }
+        addLiteral(literal);
+    }
+
+    private void addLiteral(String literal) {
+        if (!literal.isEmpty()) {
+            parts.add(record -> literal);
+        }
+    }
+
+    public String apply(SinkRecord record) {
+        StringBuilder filled = new StringBuilder();
+        for (Function<SinkRecord, String> part : parts) {
+            String value = part.apply(record);
+            if (value == null || value.isEmpty()) {
+                return defaultValue;
+            }
+            filled.append(value);
+        }
+        return filled.toString();
+    }
+
+    private static Function<SinkRecord, String> placeholder(String placeholder) {
+        if (TOPIC.equals(placeholder)) {
+            return SinkRecord::topic;
+        } else if (placeholder.startsWith(HEADER_PREFIX) && placeholder.length() > HEADER_PREFIX.length()) {
+            String name = placeholder.substring(HEADER_PREFIX.length());
+            return record -> {
+                Header header = record.headers().lastWithName(name);
+                return header == null ? null : asString(header.value());
+            };
+        } else if (placeholder.startsWith(FIELD_PREFIX) && placeholder.length() > FIELD_PREFIX.length()) {
+            String name = placeholder.substring(FIELD_PREFIX.length());
+            return record -> asString(field(record.value(), name));
+        }
+        throw new IllegalArgumentException("Unknown placeholder ${" + placeholder + "}");
+    }
+
+    private static Object field(Object value, String name) {
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).get(name);
+        } else if (value instanceof Struct) {
+            Struct struct = (Struct) value;
+            return struct.schema().field(name) != null ? struct.get(name) : null;
+        } else if (RawJsonDocument.isRaw(value)) {
+            try {
+                return new RawJsonDocument(value).getString(name);
+            } catch (IllegalArgumentException iae) {
+                // not JSON, so it won't be written
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String asString(Object value) {
+        return value instanceof String || value instanceof Number ? value.toString() : null;
+    }
+}
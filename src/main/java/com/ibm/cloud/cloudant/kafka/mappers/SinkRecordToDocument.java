@@ -1,5 +1,5 @@
 /*
- * Copyright © 2022 IBM Corp. All rights reserved.
+ * Copyright © 2022, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -13,10 +13,9 @@
  */
 package com.ibm.cloud.cloudant.kafka.mappers;
 
+import com.ibm.cloud.cloudant.kafka.utils.CloudantConst;
 import com.ibm.cloud.cloudant.v1.model.Document;
-import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Schema;
-import org.apache.kafka.connect.data.Schema.Type;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.header.Header;
 import org.apache.kafka.connect.sink.SinkRecord;
@@ -38,6 +37,60 @@ public class SinkRecordToDocument implements Function<SinkRecord, Document> {
         return document;
     }
 
+    /**
+     * Get the ID the document for this record will have, without converting the whole record.
+     *
+     * @param record the record
+     * @return the document ID, or null if the document will not have one
+     */
+    public String documentId(SinkRecord record) {
+        String headerValue = getHeaderForDocId(record);
+        if (headerValue != null && !headerValue.isEmpty()) {
+            return headerValue;
+        }
+        Object id = null;
+        if (record.value() == null) {
+            // a tombstone: the ID can only come from the key, which may be a number, as for keyDocumentId
+            return keyDocumentId(record);
+        } else if (record.value() instanceof Map) {
+            id = ((Map<?, ?>) record.value()).get(CloudantConst.CLOUDANT_DOC_ID);
+        } else if (record.value() instanceof Struct) {
+            Struct struct = (Struct) record.value();
+            if (struct.schema().field(CloudantConst.CLOUDANT_DOC_ID) != null) {
+                id = struct.get(CloudantConst.CLOUDANT_DOC_ID);
+            }
+        } else if (RawJsonDocument.isRaw(record.value())) {
+            try {
+                id = new RawJsonDocument(record.value()).getString(CloudantConst.CLOUDANT_DOC_ID);
+            } catch (IllegalArgumentException iae) {
+                // not JSON, so it won't be written
+            }
+        }
+        return id instanceof String ? (String) id : null;
+    }
+
+    /**
+     * Get a document ID from the record's key.
+     *
+     * @param record the record
+     * @return the key if it is a string or number, or the {@code _id} of a struct or map key, otherwise null
+     */
+    public String keyDocumentId(SinkRecord record) {
+        Object id = idFromKey(record.key());
+        return id instanceof String || id instanceof Number ? id.toString() : null;
+    }
+
+    // the key is either the document ID itself, or a struct or map with an _id, like the keys from the source connector
+    private static Object idFromKey(Object key) {
+        if (key instanceof Map) {
+            return ((Map<?, ?>) key).get(CloudantConst.CLOUDANT_DOC_ID);
+        } else if (key instanceof Struct) {
+            Struct struct = (Struct) key;
+            return struct.schema().field(CloudantConst.CLOUDANT_DOC_ID) != null ? struct.get(CloudantConst.CLOUDANT_DOC_ID) : null;
+        }
+        return key;
+    }
+
     private Map<String, Object> toMap(SinkRecord record) {
         if (record.value() == null) {
             return Collections.emptyMap();
@@ -74,16 +127,9 @@ public class SinkRecordToDocument implements Function<SinkRecord, Document> {
         return toReturn;
     }
 
-    // convert struct to map by adding key/values to passed in map, and returning it 
+    // convert struct to map by adding key/values to passed in map, and returning it
     private Map<String, Object> convertStruct(Struct struct, Map<String, Object> outMap) {
-        Schema schema = struct.schema();
-
-        // iterate fields and add to map
-        for (Field f : schema.fields()) {
-            Object value = struct.get(f);
-            outMap.put(f.name(), convertItemFromStruct(f.schema().type(), value));
-        }
-        return outMap;
+        return StructConverter.forSchema(struct.schema()).convert(struct, outMap);
     }
 
     // convert kafka map to map by adding key/values to passed in map, and returning it
@@ -105,36 +151,6 @@ public class SinkRecordToDocument implements Function<SinkRecord, Document> {
         return c.stream().map(this::convertItem).collect(Collectors.toList());
     }
 
-    // helper for convertStruct
-    // get field value, recursing if necessary for struct types
-    private Object convertItemFromStruct(Type type, Object value) {
-
-        switch (type) {
-            // primitive types: just return value (JSON serialiser will deal with conversion later)
-            case BOOLEAN:
-            case BYTES:
-            case FLOAT32:
-            case FLOAT64:
-            case INT16:
-            case INT32:
-            case INT64:
-            case INT8:
-            case STRING:
-                return value;
-            // map/struct cases: chain a new map onto this one, as the value, and recursively fill in its contents 
-            case MAP:
-                return convertMap((Map<?,?>) value, new HashMap<>());
-            case STRUCT:
-                return convertStruct((Struct) value, new HashMap<>());
-            // array case:
-            case ARRAY:
-                return convertCollection((Collection<?>) value);
-            default:
-                throw new IllegalArgumentException("unknown type " + type);
-        }
-
-    }
-
     // helper for convertMap, convertCollection
     private Object convertItem(Object value) {
         if (value instanceof Map) {
@@ -149,6 +165,16 @@ public class SinkRecordToDocument implements Function<SinkRecord, Document> {
         }
     }
 
+    /**
+     * Get the document ID from the record's header, if it has one.
+     *
+     * @param record the record
+     * @return the document ID from the header, or null if there isn't one
+     */
+    public String headerDocumentId(SinkRecord record) {
+        return getHeaderForDocId(record);
+    }
+
     private String getHeaderForDocId(SinkRecord record) {
         Header value = record.headers().lastWithName(HEADER_DOC_ID_KEY);
         if (value != null && value.value() instanceof String) {
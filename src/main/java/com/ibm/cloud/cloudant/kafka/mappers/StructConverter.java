@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.mappers;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+// Converts Structs with a given schema to maps, having worked out how to convert each field (and anything nested in
+// it) once for the schema rather than for every record.
+// Converters are cached by schema identity: converters normally return the same Schema instance for every record
+// with the same schema.
+final class StructConverter {
+
+    // a topic shouldn't need anything like this many; if schemas aren't being reused, start again rather than grow
+    private static final int MAX_CACHED = 1000;
+
+    private static final Map<Schema, StructConverter> cache = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private static final UnaryOperator<Object> PRIMITIVE = value -> value;
+
+    private final Schema schema;
+    private final Field[] fields;
+    private final List<UnaryOperator<Object>> converters;
+
+    static StructConverter forSchema(Schema schema) {
+        StructConverter converter = cache.get(schema);
+        if (converter == null) {
+            converter = new StructConverter(schema);
+            if (cache.size() >= MAX_CACHED) {
+                cache.clear();
+            }
+            cache.put(schema, converter);
+        }
+        return converter;
+    }
+
+    private StructConverter(Schema schema) {
+        this.schema = schema;
+        this.fields = schema.fields().toArray(new Field[0]);
+        this.converters = new ArrayList<>(fields.length);
+        for (Field field : fields) {
+            converters.add(converterFor(field.schema()));
+        }
+    }
+
+    // convert struct to map by adding key/values to passed in map, and returning it
+    Map<String, Object> convert(Struct struct, Map<String, Object> outMap) {
+        for (int i = 0; i < fields.length; i++) {
+            outMap.put(fields[i].name(), converters.get(i).apply(struct.get(fields[i])));
+        }
+        return outMap;
+    }
+
+    private static UnaryOperator<Object> converterFor(Schema schema) {
+        switch (schema.type()) {
+            // primitive types: just return value (JSON serialiser will deal with conversion later)
+            case BOOLEAN:
+            case BYTES:
+            case FLOAT32:
+            case FLOAT64:
+            case INT16:
+            case INT32:
+            case INT64:
+            case INT8:
+            case STRING:
+                return PRIMITIVE;
+            case STRUCT:
+                StructConverter nested = forSchema(schema);
+                return value -> {
+                    if (value == null) {
+                        return null;
+                    }
+                    Struct struct = (Struct) value;
+                    // a struct built with an equal but different schema instance needs its own converter
+                    StructConverter converter = struct.schema() == nested.schema ? nested : forSchema(struct.schema());
+                    return converter.convert(struct, new HashMap<>());
+                };
+            case ARRAY:
+                UnaryOperator<Object> elementConverter = converterFor(schema.valueSchema());
+                return value -> {
+                    if (value == null) {
+                        return null;
+                    }
+                    Collection<?> collection = (Collection<?>) value;
+                    List<Object> list = new ArrayList<>(collection.size());
+                    for (Object element : collection) {
+                        list.add(elementConverter.apply(element));
+                    }
+                    return list;
+                };
+            case MAP:
+                UnaryOperator<Object> valueConverter = converterFor(schema.valueSchema());
+                return value -> {
+                    if (value == null) {
+                        return null;
+                    }
+                    Map<?, ?> inMap = (Map<?, ?>) value;
+                    Map<String, Object> outMap = new HashMap<>();
+                    for (Map.Entry<?, ?> entry : inMap.entrySet()) {
+                        if (entry.getKey() instanceof String) {
+                            outMap.put((String) entry.getKey(), valueConverter.apply(entry.getValue()));
+                        } else {
+                            throw new IllegalArgumentException("unsupported type in map key " + entry.getKey().getClass());
+                        }
+                    }
+                    return outMap;
+                };
+            default:
+                throw new IllegalArgumentException("unknown type " + schema.type());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Consistent hash ring of accounts, so that each document ID is always written to the same account, and adding or
+// removing an account only moves the IDs on its share of the ring.
+// Accounts are placed on the ring by their URL rather than their position in the list, so reordering them moves
+// nothing.
+class AccountRing {
+
+    // points on the ring for each account, to spread IDs evenly between them
+    private static final int POINTS_PER_ACCOUNT = 128;
+
+    private final TreeMap<Integer, Integer> ring = new TreeMap<>();
+
+    AccountRing(List<String> urls) {
+        for (int account = 0; account < urls.size(); account++) {
+            for (int point = 0; point < POINTS_PER_ACCOUNT; point++) {
+                ring.put(hash(urls.get(account) + "#" + point), account);
+            }
+        }
+    }
+
+    // the index of the account to write the document with this ID to; documents without an ID go to the first
+    int accountFor(String id) {
+        if (id == null) {
+            return 0;
+        }
+        Map.Entry<Integer, Integer> entry = ring.ceilingEntry(hash(id));
+        return (entry == null ? ring.firstEntry() : entry).getValue();
+    }
+
+    private static int hash(String s) {
+        return Utils.murmur2(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
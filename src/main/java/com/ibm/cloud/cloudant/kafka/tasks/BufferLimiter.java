@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.utils.JsonSizeEstimator;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Accounts for the records a sink task is holding on to until they are written.
+// The high-water mark is the configured maximum; the low-water mark is half of it.
+// A maximum of 0 means no limit.
+class BufferLimiter {
+
+    private final long maxRecords;
+    private final long maxBytes;
+    private final boolean passthrough;
+
+    // records may be released by the lanes writing them
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    BufferLimiter(long maxRecords, long maxBytes, boolean passthrough) {
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.passthrough = passthrough;
+    }
+
+    boolean isEnabled() {
+        return maxRecords > 0 || maxBytes > 0;
+    }
+
+    // only estimate sizes if there is a byte limit
+    long sizeOf(SinkRecord record) {
+        return maxBytes > 0 ? JsonSizeEstimator.estimate(record.value(), passthrough) : 0;
+    }
+
+    void add(long nRecords, long nBytes) {
+        records.addAndGet(nRecords);
+        bytes.addAndGet(nBytes);
+    }
+
+    void release(long nRecords, long nBytes) {
+        records.addAndGet(-nRecords);
+        bytes.addAndGet(-nBytes);
+    }
+
+    void reset() {
+        records.set(0);
+        bytes.set(0);
+    }
+
+    boolean isAboveHighWater() {
+        return (maxRecords > 0 && records.get() >= maxRecords) || (maxBytes > 0 && bytes.get() >= maxBytes);
+    }
+
+    boolean isBelowLowWater() {
+        return (maxRecords <= 0 || records.get() < maxRecords / 2) && (maxBytes <= 0 || bytes.get() < maxBytes / 2);
+    }
+
+    long records() {
+        return records.get();
+    }
+
+    long bytes() {
+        return bytes.get();
+    }
+}
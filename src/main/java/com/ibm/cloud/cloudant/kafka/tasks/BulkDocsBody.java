@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.google.gson.Gson;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonWriter;
+import com.ibm.cloud.cloudant.kafka.mappers.RawJsonDocument;
+import com.ibm.cloud.cloudant.kafka.mappers.SinkRecordToDocument;
+import com.ibm.cloud.cloudant.kafka.utils.CloudantConst;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import com.ibm.cloud.sdk.core.util.GsonSingleton;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// A _bulk_docs request body which serializes each record straight from its Struct or Map as the body is read,
+// so neither a converted copy of each record nor the whole body is held in memory.
+// The JSON is the same as converting the records with SinkRecordToDocument and serializing the documents.
+// Records which are already JSON are copied into the body as they are, apart from the _id and _rev overrides.
+// An ID set on the write replaces the record's, the same as a header would.
+class BulkDocsBody extends InputStream {
+
+    private static final Gson gson = GsonSingleton.getGsonWithoutPrettyPrinting();
+
+    private static SinkRecordToDocument mapper = new SinkRecordToDocument();
+
+    private static final byte[] START = "{\"docs\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] START_NO_NEW_EDITS = "{\"new_edits\":false,\"docs\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] END = "]}".getBytes(StandardCharsets.UTF_8);
+
+    // gives access to its buffer, to save copying it
+    private static class Buffer extends ByteArrayOutputStream {
+        byte[] bytes() {
+            return buf;
+        }
+    }
+
+    private final Iterator<DocumentWrite> writes;
+    private final Buffer buffer = new Buffer();
+    private final JsonWriter json;
+    private final byte[] start;
+
+    private boolean started = false;
+    private boolean firstDocument = true;
+    private boolean finished = false;
+    private int position = 0;
+
+    BulkDocsBody(List<DocumentWrite> writes) {
+        this(writes, true);
+    }
+
+    // newEdits false to write the revisions in the documents as they are, like replication
+    BulkDocsBody(List<DocumentWrite> writes, boolean newEdits) {
+        this.writes = writes.iterator();
+        this.start = newEdits ? START : START_NO_NEW_EDITS;
+        this.json = new JsonWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8));
+        // each document is written as a top level value; the array around them is written directly
+        this.json.setStrictness(Strictness.LENIENT);
+    }
+
+    // throws IllegalArgumentException if the record can't be streamed, in the same cases that SinkRecordToDocument
+    // can't convert it
+    // raw JSON is checked when the write is created
+    static void checkWritable(SinkRecord record) {
+        if (record.value() == null) {
+            return;
+        }
+        Schema.Type schemaType = record.valueSchema() == null ? Schema.Type.MAP : record.valueSchema().type();
+        if (schemaType == Schema.Type.MAP && !(record.value() instanceof Map)) {
+            throw new IllegalArgumentException(String.format("Type %s not supported with schema of type Map (or no schema)",
+                    record.value().getClass()));
+        } else if (schemaType == Schema.Type.STRUCT && !(record.value() instanceof Struct)) {
+            throw new IllegalArgumentException(String.format("Type %s not supported with schema of type Struct",
+                    record.value().getClass()));
+        } else if (schemaType != Schema.Type.MAP && schemaType != Schema.Type.STRUCT) {
+            throw new IllegalArgumentException(String.format("Schema type %s not supported", schemaType));
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position == buffer.size()) {
+            if (!fill()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, buffer.size() - position);
+        System.arraycopy(buffer.bytes(), position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    // serialize the next part of the body into the buffer, returning false at the end of the body
+    private boolean fill() throws IOException {
+        buffer.reset();
+        position = 0;
+        // the writer is flushed after each part, so the buffer can be written to directly in between
+        if (!started) {
+            buffer.write(start);
+            started = true;
+        } else if (writes.hasNext()) {
+            if (!firstDocument) {
+                buffer.write(',');
+            }
+            firstDocument = false;
+            try {
+                writeDocument(writes.next());
+            } catch (IllegalArgumentException iae) {
+                throw new IOException(iae);
+            }
+            json.flush();
+        } else if (!finished) {
+            buffer.write(END);
+            finished = true;
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void writeDocument(DocumentWrite write) throws IOException {
+        if (write.document != null) {
+            // already converted, eg a deletion
+            gson.toJson(write.document, Document.class, json);
+            return;
+        }
+        if (write.raw != null) {
+            Map<String, String> overrides = new LinkedHashMap<>();
+            String id = write.id != null ? write.id : mapper.headerDocumentId(write.record);
+            if (id != null && !id.isEmpty() && !write.raw.isEmpty()) {
+                overrides.put(CloudantConst.CLOUDANT_DOC_ID, id);
+            }
+            if (write.revResolved) {
+                // null leaves it out
+                overrides.put(CloudantConst.CLOUDANT_REV, write.rev);
+            }
+            write.raw.writeTo(overrides, buffer);
+            return;
+        }
+        Object value = write.record.value();
+        json.beginObject();
+        if (value != null) {
+            // the same overrides as SinkRecordToDocument, and the revision if it has been looked up
+            String id = write.id != null ? write.id : mapper.headerDocumentId(write.record);
+            boolean empty = value instanceof Map ? ((Map<?, ?>) value).isEmpty() : ((Struct) value).schema().fields().isEmpty();
+            if (empty) {
+                id = null;
+            } else if (id != null) {
+                json.name(CloudantConst.CLOUDANT_DOC_ID).value(id);
+            }
+            if (write.revResolved && write.rev != null) {
+                json.name(CloudantConst.CLOUDANT_REV).value(write.rev);
+            }
+            if (value instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    writeMember(entry.getKey(), entry.getValue(), true, id != null, write.revResolved);
+                }
+            } else {
+                Struct struct = (Struct) value;
+                for (Field field : struct.schema().fields()) {
+                    writeMember(field.name(), struct.get(field), true, id != null, write.revResolved);
+                }
+            }
+        }
+        json.endObject();
+    }
+
+    // like the serialized documents, null members are kept at the top level but left out of nested objects
+    private void writeMember(Object name, Object value, boolean topLevel, boolean skipId, boolean skipRev) throws IOException {
+        if (!(name instanceof String)) {
+            throw new IllegalArgumentException("unsupported type in map key " + name.getClass());
+        }
+        if ((skipId && CloudantConst.CLOUDANT_DOC_ID.equals(name)) || (skipRev && CloudantConst.CLOUDANT_REV.equals(name))
+                || (value == null && !topLevel)) {
+            return;
+        }
+        json.name((String) name);
+        writeValue(value);
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            json.nullValue();
+        } else if (value instanceof Map) {
+            json.beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeMember(entry.getKey(), entry.getValue(), false, false, false);
+            }
+            json.endObject();
+        } else if (value instanceof Struct) {
+            Struct struct = (Struct) value;
+            json.beginObject();
+            for (Field field : struct.schema().fields()) {
+                writeMember(field.name(), struct.get(field), false, false, false);
+            }
+            json.endObject();
+        } else if (value instanceof Collection) {
+            json.beginArray();
+            for (Object item : (Collection<?>) value) {
+                writeValue(item);
+            }
+            json.endArray();
+        } else {
+            gson.toJson(value, value.getClass(), json);
+        }
+    }
+}
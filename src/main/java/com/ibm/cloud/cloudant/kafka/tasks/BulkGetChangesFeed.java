@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.BulkGetQueryDocument;
+import com.ibm.cloud.cloudant.v1.model.BulkGetResultDocument;
+import com.ibm.cloud.cloudant.v1.model.BulkGetResultItem;
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import com.ibm.cloud.cloudant.v1.model.PostBulkGetOptions;
+import com.ibm.cloud.sdk.core.service.exception.ServiceResponseException;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Adds the documents to changes read from a feed without include_docs, fetching them with concurrent _bulk_get
+// requests so that the feed responses stay small and the documents are downloaded and parsed in parallel.
+// Each batch of changes is split between up to concurrency requests and handed on in feed order once all of its
+// documents have been fetched. Like include_docs, this gets the current revision of each document, and deleted
+// documents get the same stub include_docs gives them rather than being fetched. Unlike include_docs, the documents
+// have their _revisions, so that a sink in replicate mode can write them with their revision history.
+class BulkGetChangesFeed implements ChangesFeed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkGetChangesFeed.class);
+
+    private static final String NOT_FOUND = "not_found";
+
+    // a change with its document
+    private static class FetchedChange extends ChangesResultItem {
+        private FetchedChange(ChangesResultItem change, Document document) {
+            this.changes = change.getChanges();
+            this.deleted = change.isDeleted();
+            this.id = change.getId();
+            this.seq = change.getSeq();
+            this.doc = document;
+        }
+    }
+
+    private final Cloudant service;
+    private final String db;
+    private final ChangesFeed feed;
+    private final int concurrency;
+    private final ExecutorService fetchers;
+    private final boolean ownExecutor;
+
+    // changes read from the feed whose documents couldn't be fetched yet
+    private List<ChangesResultItem> pending = null;
+
+    BulkGetChangesFeed(Cloudant service, String db, ChangesFeed feed, int concurrency) {
+        this(service, db, feed, concurrency, null);
+    }
+
+    // with requests made on the given executor, which is left running when the feed is closed
+    // a null executor means the feed has its own
+    BulkGetChangesFeed(Cloudant service, String db, ChangesFeed feed, int concurrency, ExecutorService executor) {
+        this.service = service;
+        this.db = db;
+        this.feed = feed;
+        this.concurrency = concurrency;
+        this.ownExecutor = executor == null;
+        this.fetchers = ownExecutor ? newExecutor("cloudant-bulk-get-" + db + "-", concurrency) : executor;
+    }
+
+    static ExecutorService newExecutor(String fetcherName, int threads) {
+        AtomicInteger fetcherCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, fetcherName + fetcherCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public List<ChangesResultItem> next(int max) throws InterruptedException {
+        List<ChangesResultItem> changes = pending != null ? pending : feed.next(max);
+        if (changes == null || changes.isEmpty()) {
+            return changes;
+        }
+        pending = changes;
+        Map<String, Document> documents;
+        Map<String, String> errors = new HashMap<>();
+        try {
+            documents = fetch(changes, errors);
+        } catch (ServiceResponseException sre) {
+            if (!ChangesFeed.isRetryable(sre)) {
+                throw sre;
+            }
+            // try again at the next poll
+            LOG.warn("Could not get {} documents from {}, status {}", changes.size(), db, sre.getStatusCode());
+            return Collections.emptyList();
+        }
+        if (!errors.isEmpty()) {
+            // only documents which aren't found are deleted, so try again at the next poll rather than handing on the
+            // others as deleted
+            Map.Entry<String, String> error = errors.entrySet().iterator().next();
+            LOG.warn("Could not get {} of {} documents from {}, {} failed with {}", errors.size(), changes.size(), db,
+                    error.getKey(), error.getValue());
+            return Collections.emptyList();
+        }
+        pending = null;
+        List<ChangesResultItem> fetched = new ArrayList<>(changes.size());
+        for (ChangesResultItem change : changes) {
+            Document document = documents.get(change.getId());
+            if (document == null) {
+                // deleted, or not found as it was deleted since it was read from the feed, in which case a later
+                // change deletes it
+                document = new Document();
+                document.setId(change.getId());
+                document.setRev(change.getChanges().get(0).getRev());
+                document.setDeleted(true);
+            }
+            fetched.add(new FetchedChange(change, document));
+        }
+        return fetched;
+    }
+
+    @Override
+    public void close() {
+        feed.close();
+        if (ownExecutor) {
+            fetchers.shutdownNow();
+        }
+    }
+
+    // the current revision of each document which isn't deleted, by ID, adding the error of each document which could
+    // not be fetched for a reason other than not being found to errors
+    private Map<String, Document> fetch(List<ChangesResultItem> changes, Map<String, String> errors) throws InterruptedException {
+        List<BulkGetQueryDocument> queries = new ArrayList<>(changes.size());
+        for (ChangesResultItem change : changes) {
+            if (!Optional.ofNullable(change.isDeleted()).orElse(false)) {
+                queries.add(new BulkGetQueryDocument.Builder().id(change.getId()).build());
+            }
+        }
+        Map<String, Document> documents = new HashMap<>(queries.size());
+        if (queries.isEmpty()) {
+            return documents;
+        }
+        int chunkSize = (queries.size() + concurrency - 1) / concurrency;
+        List<Future<List<BulkGetResultItem>>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < queries.size(); i += chunkSize) {
+            List<BulkGetQueryDocument> chunk = queries.subList(i, Math.min(i + chunkSize, queries.size()));
+            PostBulkGetOptions options = new PostBulkGetOptions.Builder().db(db).docs(chunk).revs(true).build();
+            futures.add(fetchers.submit(() -> service.postBulkGet(options).execute().getResult().getResults()));
+        }
+        // wait for all of them before throwing the first failure
+        RuntimeException failure = null;
+        for (Future<List<BulkGetResultItem>> future : futures) {
+            try {
+                for (BulkGetResultItem item : future.get()) {
+                    for (BulkGetResultDocument result : item.getDocs()) {
+                        if (result.getOk() != null) {
+                            documents.put(item.getId(), result.getOk());
+                        } else if (result.getError() != null && !NOT_FOUND.equals(result.getError().getError())) {
+                            errors.put(item.getId(), result.getError().getError() + ": " + result.getError().getReason());
+                        }
+                    }
+                }
+            } catch (ExecutionException ee) {
+                if (failure == null) {
+                    failure = ee.getCause() instanceof RuntimeException
+                            ? (RuntimeException) ee.getCause()
+                            : new ConnectException(ee.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        LOG.debug("Got {} documents for {} changes", documents.size(), changes.size());
+        return documents;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.sdk.core.service.exception.ServiceResponseException;
+
+import java.util.List;
+
+// A database's _changes feed, read in order from a sequence ID
+interface ChangesFeed {
+
+    // the next changes, at most max of them, waiting for a while if there are none yet
+    // returns an empty list if there were no changes in that time, or null if the feed has been closed
+    List<ChangesResultItem> next(int max) throws InterruptedException;
+
+    // stop reading the feed
+    void close();
+
+    // whether a request which failed with the given error might succeed if it is made again
+    static boolean isRetryable(ServiceResponseException sre) {
+        int status = sre.getStatusCode();
+        return status < 400 || status >= 500 || status == 408 || status == 429;
+    }
+}
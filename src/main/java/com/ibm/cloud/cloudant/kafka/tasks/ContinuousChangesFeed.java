@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.cloudant.v1.model.PostChangesOptions;
+import com.ibm.cloud.sdk.core.service.exception.ServiceResponseException;
+import com.ibm.cloud.sdk.core.util.GsonSingleton;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Reads the _changes feed over one long-lived continuous request, from a background thread which hands each change
+// to the task through a bounded queue. When the queue is full the thread stops reading, so the server only sends as
+// fast as the task produces records. If the request ends or fails it is made again from the last change read, backing
+// off while it keeps failing; errors which trying again can't fix, like a missing database, fail the task instead.
+class ContinuousChangesFeed implements ChangesFeed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContinuousChangesFeed.class);
+
+    static final long HEARTBEAT_MS = 30 * 1000L;
+    static final long RETRY_MIN_MS = 1000L;
+    static final long RETRY_MAX_MS = 60 * 1000L;
+    // how long next waits for a change before returning none
+    static final long POLL_WAIT_MS = 1000L;
+
+    private static final Gson gson = GsonSingleton.getGsonWithoutPrettyPrinting();
+
+    private final Cloudant service;
+    private final String db;
+    private final boolean includeDocs;
+    private final BlockingQueue<ChangesResultItem> queue;
+    private final Thread reader;
+
+    private volatile boolean running = true;
+    private volatile InputStream stream;
+    private volatile RuntimeException failure;
+
+    // only used by the reader thread
+    private String since;
+    private long backoff = RETRY_MIN_MS;
+
+    ContinuousChangesFeed(Cloudant service, String db, String since, boolean includeDocs, int capacity) {
+        this.service = service;
+        this.db = db;
+        this.since = since;
+        this.includeDocs = includeDocs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.reader = new Thread(this::run, "cloudant-changes-" + db);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    @Override
+    public List<ChangesResultItem> next(int max) throws InterruptedException {
+        throwIfFailed();
+        ChangesResultItem first = queue.poll(POLL_WAIT_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            throwIfFailed();
+            return Collections.emptyList();
+        }
+        List<ChangesResultItem> changes = new ArrayList<>(Math.min(max, queue.size() + 1));
+        changes.add(first);
+        queue.drainTo(changes, max - 1);
+        LOG.debug("Got {} changes", changes.size());
+        return changes;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        closeStream();
+        reader.interrupt();
+    }
+
+    private void throwIfFailed() {
+        RuntimeException f = failure;
+        if (f != null) {
+            throw new ConnectException("Could not read the changes feed of " + db, f);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                read();
+                // the server ended the request, carry on from where it left off
+                continue;
+            } catch (ServiceResponseException sre) {
+                if (!ChangesFeed.isRetryable(sre)) {
+                    LOG.error("Changes feed of {} failed with status {}", db, sre.getStatusCode(), sre);
+                    failure = sre;
+                    return;
+                }
+                LOG.warn("Changes feed of {} failed with status {}, trying again in {} ms", db, sre.getStatusCode(), backoff);
+            } catch (InterruptedException ie) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                LOG.warn("Changes feed of {} failed, trying again in {} ms", db, backoff, e);
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException ie) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, RETRY_MAX_MS);
+        }
+    }
+
+    // read changes until the request ends
+    private void read() throws IOException, InterruptedException {
+        LOG.debug("Following changes of {} from {}", db, since);
+        PostChangesOptions postChangesOptions = new PostChangesOptions.Builder()
+                .feed(PostChangesOptions.Feed.CONTINUOUS)
+                .heartbeat(HEARTBEAT_MS)
+                .db(db)
+                .includeDocs(includeDocs)
+                .since(since)
+                .build();
+        try (InputStream in = service.postChangesAsStream(postChangesOptions).execute().getResult();
+             BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            stream = in;
+            String line;
+            while (running && (line = lines.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    // heartbeat
+                    continue;
+                }
+                JsonObject row = JsonParser.parseString(line).getAsJsonObject();
+                if (row.has("last_seq")) {
+                    // the server ended the feed
+                    since = row.get("last_seq").getAsString();
+                    continue;
+                }
+                ChangesResultItem change = gson.fromJson(row, ChangesResultItem.class);
+                queue.put(change);
+                since = change.getSeq();
+                backoff = RETRY_MIN_MS;
+            }
+        } finally {
+            stream = null;
+        }
+    }
+
+    private void closeStream() {
+        InputStream s = stream;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+        }
+    }
+}
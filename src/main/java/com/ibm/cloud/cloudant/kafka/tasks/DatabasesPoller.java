@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.sdk.core.service.exception.NotFoundException;
+import com.ibm.cloud.sdk.core.service.exception.ServiceResponseException;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Reads the _changes feeds of many databases from a fixed number of threads, so that a task's threads and connections
+// stay the same however many databases it reads. The databases take turns: a thread takes the database which has been
+// waiting longest, reads up to a batch of its changes with a request which doesn't wait for more, and puts it back. A
+// database with changes is put back to be read again straight away, and one without waits a while, longer each time
+// until it has changes again. Each database is read by one thread at a time, so its records are handed on in feed
+// order, through a queue of batches which holds one per thread, so the threads stop reading while it is full. Errors
+// which trying again can't fix fail the task, except for a database which has been deleted, which is dropped.
+class DatabasesPoller {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatabasesPoller.class);
+
+    static final long IDLE_MIN_MS = 1000L;
+    static final long IDLE_MAX_MS = 10 * 1000L;
+
+    private static class Database implements Delayed {
+        private final String db;
+        private final ChangesFeed feed;
+        private final Function<List<ChangesResultItem>, List<SourceRecord>> toRecords;
+        // how long it last waited, and when it is next read, only changed while it isn't queued
+        private long waitMs = 0;
+        private long nextReadNanos = System.nanoTime();
+
+        private Database(String db, ChangesFeed feed, Function<List<ChangesResultItem>, List<SourceRecord>> toRecords) {
+            this.db = db;
+            this.feed = feed;
+            this.toRecords = toRecords;
+        }
+
+        private void readAfter(long waitMs) {
+            this.waitMs = waitMs;
+            nextReadNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(nextReadNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(nextReadNanos, ((Database) other).nextReadNanos);
+        }
+    }
+
+    private final int batchSize;
+    private final ExecutorService readers;
+    private final DelayQueue<Database> databases = new DelayQueue<>();
+    private final Set<Database> open = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<List<SourceRecord>> batches;
+
+    private volatile RuntimeException failure;
+
+    DatabasesPoller(String readerName, int concurrency, int batchSize) {
+        this.batchSize = batchSize;
+        this.batches = new ArrayBlockingQueue<>(concurrency);
+        this.readers = BulkGetChangesFeed.newExecutor(readerName, concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            readers.execute(this::run);
+        }
+    }
+
+    // read the changes of a database from its feed, which should not wait for changes, into its records
+    void add(String db, ChangesFeed feed, Function<List<ChangesResultItem>, List<SourceRecord>> toRecords) {
+        Database database = new Database(db, feed, toRecords);
+        open.add(database);
+        databases.add(database);
+    }
+
+    // the records of the next batches read, as many whole batches as fit in max records, waiting up to waitMs for one
+    List<SourceRecord> poll(int max, long waitMs) throws InterruptedException {
+        List<SourceRecord> batch = batches.poll(waitMs, TimeUnit.MILLISECONDS);
+        if (batch == null) {
+            RuntimeException f = failure;
+            if (f != null) {
+                throw new ConnectException("Could not read the changes feeds", f);
+            }
+            return Collections.emptyList();
+        }
+        List<SourceRecord> records = new ArrayList<>(batch);
+        while ((batch = batches.peek()) != null && records.size() + batch.size() <= max) {
+            records.addAll(batches.poll());
+        }
+        return records;
+    }
+
+    void close() {
+        readers.shutdownNow();
+        for (Database database : open) {
+            database.feed.close();
+        }
+    }
+
+    private void run() {
+        try {
+            while (failure == null) {
+                Database database = databases.take();
+                if (read(database)) {
+                    databases.add(database);
+                }
+            }
+        } catch (InterruptedException ie) {
+            // closed
+        }
+    }
+
+    // read the next batch of a database, returning whether it should be read again
+    private boolean read(Database database) throws InterruptedException {
+        List<ChangesResultItem> changes;
+        try {
+            changes = database.feed.next(batchSize);
+        } catch (NotFoundException nfe) {
+            // deleted since it was assigned, carry on with the others until the tasks are reconfigured
+            LOG.warn("Database {} no longer exists, stopped reading its changes", database.db);
+            database.feed.close();
+            open.remove(database);
+            return false;
+        } catch (ServiceResponseException sre) {
+            if (!ChangesFeed.isRetryable(sre)) {
+                LOG.error("Changes feed of {} failed with status {}", database.db, sre.getStatusCode(), sre);
+                failure = sre;
+                return false;
+            }
+            database.readAfter(backoff(database.waitMs, ContinuousChangesFeed.RETRY_MIN_MS, ContinuousChangesFeed.RETRY_MAX_MS));
+            LOG.warn("Changes feed of {} failed with status {}, trying again in {} ms", database.db, sre.getStatusCode(), database.waitMs);
+            return true;
+        } catch (RuntimeException re) {
+            database.readAfter(backoff(database.waitMs, ContinuousChangesFeed.RETRY_MIN_MS, ContinuousChangesFeed.RETRY_MAX_MS));
+            LOG.warn("Changes feed of {} failed, trying again in {} ms", database.db, database.waitMs, re);
+            return true;
+        }
+        if (changes == null) {
+            return false;
+        }
+        if (changes.isEmpty()) {
+            database.readAfter(backoff(database.waitMs, IDLE_MIN_MS, IDLE_MAX_MS));
+        } else {
+            batches.put(database.toRecords.apply(changes));
+            database.readAfter(0);
+        }
+        return true;
+    }
+
+    private static long backoff(long waitMs, long min, long max) {
+        return Math.min(Math.max(waitMs * 2, min), max);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.mappers.RawJsonDocument;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A record to be written to Cloudant, and what we know about it so far
+class DocumentWrite {
+
+    final SinkRecord record;
+
+    // estimated size of the record while it is held by the task
+    final long bufferedBytes;
+
+    // set when writing asynchronously, or when checkpointing offsets
+    OffsetTracker.Entry offset = null;
+
+    // set when the document is written with a different ID from its record's, like a header would, eg to add its
+    // partition
+    String id = null;
+    // set when that ID is the record's topic, partition and offset, so only this record is ever written with it
+    boolean offsetId = false;
+
+    // set when the record is converted, unless it is streamed
+    Document document = null;
+    // set instead when the record is already JSON and is passed through
+    RawJsonDocument raw = null;
+    // or set when it is meant to be JSON but isn't valid, so it is reported instead of being written
+    RuntimeException invalid = null;
+    long documentBytes = 0;
+
+    // set when the record is a tombstone converted to a deletion of its document
+    boolean deletion = false;
+
+    // set when the current revision has been looked up, null if there isn't one
+    String rev = null;
+    boolean revResolved = false;
+
+    // earlier writes of the same document which this one replaces, when coalescing
+    List<DocumentWrite> superseded = null;
+
+    DocumentWrite(SinkRecord record) {
+        this(record, 0);
+    }
+
+    DocumentWrite(SinkRecord record, long bufferedBytes) {
+        this.record = record;
+        this.bufferedBytes = bufferedBytes;
+    }
+
+    void supersede(DocumentWrite earlier) {
+        if (superseded == null) {
+            superseded = new ArrayList<>();
+        }
+        superseded.add(earlier);
+    }
+}
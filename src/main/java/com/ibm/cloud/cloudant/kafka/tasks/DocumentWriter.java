@@ -0,0 +1,626 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.caching.CachedClientManager;
+import com.ibm.cloud.cloudant.kafka.mappers.RawJsonDocument;
+import com.ibm.cloud.cloudant.kafka.mappers.SinkRecordTemplate;
+import com.ibm.cloud.cloudant.kafka.mappers.SinkRecordToDocument;
+import com.ibm.cloud.cloudant.kafka.utils.CloudantConst;
+import com.ibm.cloud.cloudant.kafka.utils.InterfaceConst;
+import com.ibm.cloud.cloudant.kafka.utils.JavaCloudantUtil;
+import com.ibm.cloud.cloudant.kafka.utils.JsonSizeEstimator;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import com.ibm.cloud.cloudant.v1.model.DocumentResult;
+import com.ibm.cloud.sdk.core.service.exception.NotFoundException;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Converts records to documents and writes them to Cloudant in batches.
+// Documents that fail with a transient error are retried on their own; documents that fail otherwise are reported.
+class DocumentWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DocumentWriter.class);
+
+    // per-document errors in a _bulk_docs response which may succeed if the document is written again
+    static final Set<String> TRANSIENT_ERRORS = Set.of("too_many_requests", "unknown_error");
+
+    // per-document error in a _bulk_docs response when the document's revision isn't the current one
+    static final String CONFLICT_ERROR = "conflict";
+
+    // separates the partition from the rest of a document ID in a partitioned database
+    private static final char PARTITION_SEPARATOR = ':';
+
+    // cap the backoff at 2^10 times the configured value
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    private static SinkRecordToDocument mapper = new SinkRecordToDocument();
+
+    private final Map<String, String> props;
+    private final int batchSize;
+    private final long batchMaxBytes;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final boolean coalesce;
+    private final boolean upsert;
+    private final boolean replicate;
+    private final boolean deleteTombstones;
+    private final boolean partitioned;
+    private final int shards;
+    private final boolean streaming;
+    private final boolean passthrough;
+    private final SinkRecordTemplate partitionKey;
+    private final boolean partitionBatching;
+    private final String idStrategy;
+    private final ErrantRecordReporter reporter;
+
+    // the accounts and databases that records are written to, and the databases which have been created, if needed,
+    // before their first write
+    private final List<Map<String, String>> accounts;
+    private final AccountRing accountRing;
+    private final String defaultDatabase;
+    private final SinkRecordTemplate router;
+    private final boolean routed;
+    private final Set<Target> readyDatabases = ConcurrentHashMap.newKeySet();
+    // held while creating each database, so that a slow creation only holds up writes to the same database
+    private final Map<Target, Object> databaseLocks = new ConcurrentHashMap<>();
+
+    // writes to different accounts and databases concurrently, when records go to more than one
+    private final ExecutorService targetWriters;
+
+    // an account and database to write to
+    private static final class Target {
+        final int account;
+        final String url;
+        final String database;
+
+        Target(int account, String url, String database) {
+            this.account = account;
+            this.url = url;
+            this.database = database;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Target)) {
+                return false;
+            }
+            Target target = (Target) o;
+            return account == target.account && database.equals(target.database);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(account, database);
+        }
+
+        @Override
+        public String toString() {
+            return url + "/" + database;
+        }
+    }
+
+    // latest known revisions, when upserting with a revision cache
+    private final RevisionCache revisionCache;
+
+    // converts records to documents in parallel, when there is more than one conversion thread
+    private final ForkJoinPool conversionPool;
+
+    DocumentWriter(SinkConnectorConfig config, ErrantRecordReporter reporter) {
+        this(config, reporter, null);
+    }
+
+    DocumentWriter(SinkConnectorConfig config, ErrantRecordReporter reporter, RevisionCache revisionCache) {
+        this.props = config.originalsStrings();
+        this.batchSize = config.getInt(InterfaceConst.BATCH_SIZE);
+        this.batchMaxBytes = config.getInt(InterfaceConst.BATCH_MAX_BYTES);
+        this.maxRetries = config.getInt(InterfaceConst.WRITE_RETRIES);
+        this.retryBackoffMs = config.getLong(InterfaceConst.WRITE_RETRY_BACKOFF_MS);
+        this.coalesce = config.getBoolean(InterfaceConst.WRITE_COALESCE);
+        this.upsert = InterfaceConst.WRITE_MODE_UPSERT.equalsIgnoreCase(config.getString(InterfaceConst.WRITE_MODE));
+        this.replicate = InterfaceConst.WRITE_MODE_REPLICATE.equalsIgnoreCase(config.getString(InterfaceConst.WRITE_MODE));
+        // a deletion needs a new revision, which only the server can make
+        this.deleteTombstones = !replicate && config.getBoolean(InterfaceConst.TOMBSTONE_DELETE);
+        this.partitioned = config.getBoolean(InterfaceConst.DB_PARTITIONED);
+        this.shards = config.getInt(InterfaceConst.DB_SHARDS);
+        this.passthrough = config.getBoolean(InterfaceConst.WRITE_PASSTHROUGH);
+        // raw JSON can only be written in a streamed body
+        this.streaming = passthrough || config.getBoolean(InterfaceConst.WRITE_STREAMING);
+        String partitionKeyTemplate = config.getString(InterfaceConst.PARTITION_KEY);
+        this.partitionKey = partitionKeyTemplate == null ? null : new SinkRecordTemplate(partitionKeyTemplate, null);
+        this.partitionBatching = config.getBoolean(InterfaceConst.PARTITION_BATCHING);
+        this.idStrategy = config.getString(InterfaceConst.ID_STRATEGY).toLowerCase(Locale.ROOT);
+        this.reporter = reporter;
+        this.revisionCache = revisionCache;
+        this.accounts = SinkConnectorConfig.accountsProperties(props);
+        this.accountRing = new AccountRing(accounts.stream().map(account -> account.get(InterfaceConst.URL)).collect(Collectors.toList()));
+        String route = config.getString(InterfaceConst.DB_ROUTE);
+        this.defaultDatabase = config.getString(InterfaceConst.DB);
+        this.router = new SinkRecordTemplate(route, defaultDatabase);
+        this.routed = route != null;
+        // each account writes to up to cloudant.db.route.concurrency databases at a time
+        int targetConcurrency = accounts.size() * (routed ? config.getInt(InterfaceConst.DB_ROUTE_CONCURRENCY) : 1);
+        if (targetConcurrency > 1) {
+            String writerName = String.format("cloudant-sink-db-writer-%s-", props.get("name"));
+            AtomicInteger writerCount = new AtomicInteger();
+            this.targetWriters = Executors.newFixedThreadPool(targetConcurrency, r -> {
+                Thread t = new Thread(r, writerName + writerCount.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.targetWriters = null;
+        }
+        int conversionThreads = config.getInt(InterfaceConst.CONVERSION_THREADS);
+        if (conversionThreads > 1) {
+            String threadName = String.format("cloudant-sink-converter-%s-", props.get("name"));
+            AtomicInteger threadCount = new AtomicInteger();
+            this.conversionPool = new ForkJoinPool(conversionThreads, pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName(threadName + threadCount.getAndIncrement());
+                return t;
+            }, null, false);
+        } else {
+            this.conversionPool = null;
+        }
+    }
+
+    // convert the records to documents and write them in batches to the account and database each is routed to
+    // onWritten is called with each batch once every document in it has been written or reported, including any
+    // writes superseded by those documents
+    // throws RuntimeException if any batch could not be written
+    void write(List<DocumentWrite> writes, Consumer<List<DocumentWrite>> onWritten) {
+        if (!InterfaceConst.ID_STRATEGY_RECORD.equals(idStrategy)) {
+            writes.forEach(this::addId);
+        }
+        if (partitionKey != null) {
+            writes.forEach(this::addPartition);
+        }
+        if (!routed && accounts.size() == 1) {
+            write(new Target(0, accounts.get(0).get(InterfaceConst.URL), defaultDatabase), writes, onWritten);
+            return;
+        }
+        // keeping the records for each account and database in order
+        Map<Target, List<DocumentWrite>> writesByTarget = new LinkedHashMap<>();
+        for (DocumentWrite write : writes) {
+            // documents without an ID go to the first account
+            int account = accounts.size() == 1 ? 0 : accountRing.accountFor(writeId(write));
+            Target target = new Target(account, accounts.get(account).get(InterfaceConst.URL), router.apply(write.record));
+            writesByTarget.computeIfAbsent(target, t -> new ArrayList<>()).add(write);
+        }
+        if (targetWriters == null || writesByTarget.size() == 1) {
+            writesByTarget.forEach((target, targetWrites) -> write(target, targetWrites, onWritten));
+            return;
+        }
+        List<Future<?>> targetFutures = new ArrayList<>(writesByTarget.size());
+        writesByTarget.forEach((target, targetWrites) ->
+                targetFutures.add(targetWriters.submit(() -> write(target, targetWrites, onWritten))));
+        // wait for all of them, so that everything written is passed to onWritten, before throwing the first failure
+        RuntimeException failure = null;
+        for (Future<?> targetFuture : targetFutures) {
+            try {
+                targetFuture.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new ConnectException("Interrupted waiting for documents to be written", ie);
+            } catch (ExecutionException ee) {
+                if (failure == null) {
+                    failure = ee.getCause() instanceof RuntimeException
+                            ? (RuntimeException) ee.getCause()
+                            : new ConnectException(ee.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // the document ID that writes are coalesced, grouped by partition and routed to accounts by
+    // tombstones which aren't deletions have none
+    private String writeId(DocumentWrite write) {
+        if (write.id != null) {
+            return write.id;
+        }
+        return write.record.value() == null && !deleteTombstones ? null : mapper.documentId(write.record);
+    }
+
+    // give documents which would otherwise get an ID from the server one which is the same each time their record is
+    // written, so that writing records again after a failure doesn't make more documents
+    private void addId(DocumentWrite write) {
+        if (write.record.value() == null || writeId(write) != null) {
+            return;
+        }
+        if (InterfaceConst.ID_STRATEGY_OFFSET.equals(idStrategy)) {
+            // the original topic, partition and offset, which transforms don't change
+            write.id = String.format("%s-%d-%d", write.record.originalTopic(), write.record.originalKafkaPartition(),
+                    write.record.originalKafkaOffset());
+            write.offsetId = true;
+        } else {
+            write.id = mapper.keyDocumentId(write.record);
+        }
+    }
+
+    // documents in partitioned databases need IDs like <partition>:<id>; IDs which already have a partition, and
+    // design documents, are left alone
+    private void addPartition(DocumentWrite write) {
+        String id = writeId(write);
+        if (id != null && id.indexOf(PARTITION_SEPARATOR) < 0 && !id.startsWith("_")) {
+            String partition = partitionKey.apply(write.record);
+            if (partition != null) {
+                write.id = partition + PARTITION_SEPARATOR + id;
+            }
+        }
+    }
+
+    // all the writes for each partition together, so that each batch goes to as few shards as possible
+    // partitions are in the order they first appear, and the writes for each are in their original order
+    private List<DocumentWrite> groupByPartition(List<DocumentWrite> writes) {
+        Map<String, List<DocumentWrite>> writesByPartition = new LinkedHashMap<>();
+        for (DocumentWrite write : writes) {
+            String id = writeId(write);
+            int separator = id == null ? -1 : id.indexOf(PARTITION_SEPARATOR);
+            // documents without a partition are grouped together
+            String partition = separator < 0 ? "" : id.substring(0, separator);
+            writesByPartition.computeIfAbsent(partition, p -> new ArrayList<>()).add(write);
+        }
+        List<DocumentWrite> grouped = new ArrayList<>(writes.size());
+        writesByPartition.values().forEach(grouped::addAll);
+        return grouped;
+    }
+
+    private void write(Target target, List<DocumentWrite> writes, Consumer<List<DocumentWrite>> onWritten) {
+        if (coalesce) {
+            int received = writes.size();
+            writes = coalesce(writes);
+            LOG.debug("Coalesced {} records to {} documents for {}", received, writes.size(), target);
+        }
+        if (partitionBatching) {
+            writes = groupByPartition(writes);
+        }
+        List<ForkJoinTask<?>> conversions = new ArrayList<>();
+        if (conversionPool == null) {
+            writes.forEach(this::convert);
+        } else {
+            // convert a batch's worth at a time, in order, so that the first batches can be written while later ones
+            // are still being converted
+            for (int start = 0; start < writes.size(); start += batchSize) {
+                List<DocumentWrite> chunk = writes.subList(start, Math.min(start + batchSize, writes.size()));
+                conversions.add(conversionPool.submit(() -> chunk.parallelStream().forEach(this::convert)));
+            }
+        }
+        // break down accumulated records into batches to send to cloudant, ending each batch when it reaches either
+        // batch.size documents or batch.max.bytes
+        LOG.info("flush called with {} documents to {}", writes.size(), target);
+        try {
+            int batchStart = 0;
+            long batchBytes = 0;
+            for (int i = 0; i < writes.size(); i++) {
+                if (!conversions.isEmpty() && i % batchSize == 0) {
+                    conversions.get(i / batchSize).join();
+                }
+                long documentBytes = writes.get(i).documentBytes;
+                if (i > batchStart && (i - batchStart == batchSize || batchBytes + documentBytes > batchMaxBytes)) {
+                    writeBatch(target, writes.subList(batchStart, i), onWritten);
+                    batchStart = i;
+                    batchBytes = 0;
+                }
+                batchBytes += documentBytes;
+            }
+            if (batchStart < writes.size()) {
+                writeBatch(target, writes.subList(batchStart, writes.size()), onWritten);
+            }
+        } finally {
+            // if a batch failed, don't carry on converting the rest
+            conversions.forEach(conversion -> conversion.cancel(false));
+        }
+    }
+
+    // stop the conversion and writer threads, if any
+    void close() {
+        if (conversionPool != null) {
+            conversionPool.shutdownNow();
+        }
+        if (targetWriters != null) {
+            targetWriters.shutdownNow();
+        }
+    }
+
+    private void writeBatch(Target target, List<DocumentWrite> batch, Consumer<List<DocumentWrite>> onWritten) {
+        List<DocumentWrite> valid = passthrough ? reportInvalid(batch) : batch;
+        if (!valid.isEmpty()) {
+            writeBatch(target, valid);
+        }
+        onWritten.accept(coalesce ? withSuperseded(batch) : batch);
+    }
+
+    // report the records which can't be written, and leave them out of the batch
+    // without a reporter, they fail the batch, as any other record that can't be converted does
+    private List<DocumentWrite> reportInvalid(List<DocumentWrite> batch) {
+        List<DocumentWrite> valid = new ArrayList<>(batch.size());
+        for (DocumentWrite write : batch) {
+            if (write.invalid == null) {
+                valid.add(write);
+            } else if (reporter != null) {
+                // logging not needed - user can enable `errors.log.enable` if required
+                reporter.report(write.record, write.invalid);
+            } else {
+                throw write.invalid;
+            }
+        }
+        return valid;
+    }
+
+    // Note: _rev is preserved
+    private void convert(DocumentWrite write) {
+        String tombstoneId = deleteTombstones && write.record.value() == null ? writeId(write) : null;
+        if (tombstoneId != null) {
+            write.document = deletion(tombstoneId);
+            write.deletion = true;
+            write.documentBytes = JsonSizeEstimator.estimate(write.document);
+        } else if (passthrough && RawJsonDocument.isRaw(write.record.value())) {
+            try {
+                write.raw = new RawJsonDocument(write.record.value());
+                write.documentBytes = write.raw.length();
+            } catch (IllegalArgumentException iae) {
+                // reported when its batch is written, as it would fail the whole request
+                write.invalid = iae;
+            }
+        } else if (streaming) {
+            // serialized straight from the record when the batch is written
+            BulkDocsBody.checkWritable(write.record);
+            write.documentBytes = JsonSizeEstimator.estimate(write.record.value());
+        } else {
+            write.document = mapper.apply(write.record); // Convert ConnectRecord to Map
+            if (write.id != null) {
+                write.document.put(CloudantConst.CLOUDANT_DOC_ID, write.id);
+            }
+            write.documentBytes = JsonSizeEstimator.estimate(write.document);
+        }
+    }
+
+    private static Document deletion(String id) {
+        Document document = new Document();
+        document.put(CloudantConst.CLOUDANT_DOC_ID, id);
+        document.put(CloudantConst.CLOUDANT_DELETED, true);
+        return document;
+    }
+
+    // deletions always need the current revision; other writes only need it when upserting
+    private boolean needsRevision(DocumentWrite write) {
+        return upsert || write.deletion;
+    }
+
+    // keep only the last write of each document ID, in the position of that last write
+    // writes without a document ID are all kept, as are tombstones which aren't deletions
+    private List<DocumentWrite> coalesce(List<DocumentWrite> writes) {
+        Map<String, DocumentWrite> latest = new HashMap<>();
+        List<DocumentWrite> coalesced = new ArrayList<>(writes.size());
+        for (int i = writes.size() - 1; i >= 0; i--) {
+            DocumentWrite write = writes.get(i);
+            String id = writeId(write);
+            DocumentWrite later = id == null ? null : latest.putIfAbsent(id, write);
+            if (later == null) {
+                coalesced.add(write);
+            } else {
+                later.supersede(write);
+            }
+        }
+        Collections.reverse(coalesced);
+        return coalesced;
+    }
+
+    private static List<DocumentWrite> withSuperseded(List<DocumentWrite> batch) {
+        List<DocumentWrite> all = new ArrayList<>(batch);
+        for (DocumentWrite write : batch) {
+            if (write.superseded != null) {
+                all.addAll(write.superseded);
+            }
+        }
+        return all;
+    }
+
+    private void writeBatch(Target target, List<DocumentWrite> batch) {
+        Map<String, String> accountProps = accounts.get(target.account);
+        List<DocumentWrite> toWrite = batch;
+        // these documents need their current revision before they are written
+        List<DocumentWrite> toResolve = upsert ? batch : batch.stream().filter(this::needsRevision).collect(Collectors.toList());
+        for (int attempt = 0; !toWrite.isEmpty(); attempt++) {
+            if (!toResolve.isEmpty()) {
+                resolveRevisions(target, toResolve);
+            }
+            LOG.info("Calling batchWrite with {} documents to {}", toWrite.size(), target);
+            ensureDatabase(target);
+            List<DocumentResult> writeResults;
+            try {
+                if (streaming) {
+                    writeResults = JavaCloudantUtil.batchWrite(accountProps, target.database, new BulkDocsBody(toWrite, !replicate));
+                } else {
+                    writeResults = JavaCloudantUtil.batchWrite(accountProps, target.database,
+                            toWrite.stream().map(w -> w.document).collect(Collectors.toList()), !replicate);
+                }
+            } catch (NotFoundException nfe) {
+                // the database has been deleted since - create it again before the next write
+                readyDatabases.remove(target);
+                throw nfe;
+            }
+            if (replicate) {
+                writeResults = matchResults(toWrite, writeResults);
+            }
+            List<DocumentWrite> retries = new ArrayList<>();
+            List<DocumentWrite> conflicts = new ArrayList<>();
+            for (int i = 0; i < writeResults.size(); i++) {
+                DocumentResult writeResult = writeResults.get(i);
+                // only replicated documents can have no result, when they have been written
+                boolean ok = writeResult == null || (writeResult.isOk() != null && writeResult.isOk());
+                if (revisionCache != null && writeResult != null && writeResult.getId() != null) {
+                    if (ok) {
+                        revisionCache.put(cacheKey(target, writeResult.getId()), writeResult.getRev());
+                    } else if (CONFLICT_ERROR.equals(writeResult.getError())) {
+                        revisionCache.remove(cacheKey(target, writeResult.getId()));
+                    }
+                }
+                if (!ok) {
+                    if (toWrite.get(i).offsetId && !needsRevision(toWrite.get(i)) && CONFLICT_ERROR.equals(writeResult.getError())) {
+                        // only this record has this ID, so it was written before, eg by an attempt which failed after
+                        // writing some of its documents
+                        LOG.debug("Document {} was already written", idOf(toWrite.get(i)));
+                    } else if (attempt < maxRetries && TRANSIENT_ERRORS.contains(writeResult.getError())) {
+                        retries.add(toWrite.get(i));
+                    } else if (attempt < maxRetries && needsRevision(toWrite.get(i)) && CONFLICT_ERROR.equals(writeResult.getError())) {
+                        // updated since we looked up its revision - look it up again and retry straight away
+                        conflicts.add(toWrite.get(i));
+                    } else if (reporter != null) {
+                        // logging not needed - user can enable `errors.log.enable` if required
+                        reporter.report(toWrite.get(i).record,
+                                new RuntimeException(String.format("Failed to batch write document to Cloudant with error %s reason %s",
+                                        writeResult.getError(), writeResult.getReason())));
+                    }
+                }
+            }
+            if (!retries.isEmpty()) {
+                long backoff = retryBackoffMs << Math.min(attempt, MAX_BACKOFF_SHIFT);
+                LOG.info("Retrying {} documents to {} in {} ms", retries.size(), target, backoff);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new ConnectException("Interrupted before retrying documents", ie);
+                }
+            }
+            retries.addAll(conflicts);
+            toWrite = retries;
+            toResolve = conflicts;
+        }
+    }
+
+    // results of a new_edits=false request are only for the documents which failed, so match them to the writes by ID,
+    // with null for the writes which have been written
+    private static List<DocumentResult> matchResults(List<DocumentWrite> writes, List<DocumentResult> results) {
+        Map<String, DocumentResult> resultsById = new HashMap<>();
+        for (DocumentResult result : results) {
+            if (result.getId() != null) {
+                resultsById.put(result.getId(), result);
+            }
+        }
+        List<DocumentResult> matched = new ArrayList<>(writes.size());
+        for (DocumentWrite write : writes) {
+            String id = idOf(write);
+            matched.add(id == null ? null : resultsById.get(id));
+        }
+        return matched;
+    }
+
+    // create cloudant.db on the configured account if it hasn't been written to yet, as when every record is routed to
+    // other databases or accounts
+    // throws RuntimeException if it could not be created
+    void ensureDefaultDatabase() {
+        ensureDatabase(new Target(0, accounts.get(0).get(InterfaceConst.URL), defaultDatabase));
+    }
+
+    // lanes share the writer, so only one of them creates each database
+    private void ensureDatabase(Target target) {
+        if (readyDatabases.contains(target)) {
+            return;
+        }
+        synchronized (databaseLocks.computeIfAbsent(target, t -> new Object())) {
+            if (!readyDatabases.contains(target)) {
+                JavaCloudantUtil.createTargetDb(CachedClientManager.getInstance(accounts.get(target.account)), target.database,
+                        partitioned, shards);
+                readyDatabases.add(target);
+            }
+        }
+    }
+
+    // document IDs are only unique within a database, and each ID is only ever written to one account
+    private String cacheKey(Target target, String id) {
+        // ':' can't be in a database name
+        return routed ? target.database + ':' + id : id;
+    }
+
+    // look up the current revisions of the documents with IDs which aren't in the revision cache in one request, and
+    // write over them
+    private void resolveRevisions(Target target, List<DocumentWrite> writes) {
+        Map<String, String> revisions = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        for (DocumentWrite write : writes) {
+            String id = idOf(write);
+            if (id != null) {
+                String cached = revisionCache == null ? null : revisionCache.get(cacheKey(target, id));
+                if (cached != null) {
+                    revisions.put(id, cached);
+                } else {
+                    ids.add(id);
+                }
+            }
+        }
+        if (!ids.isEmpty()) {
+            revisions.putAll(JavaCloudantUtil.getRevisions(accounts.get(target.account), target.database, ids));
+        }
+        for (DocumentWrite write : writes) {
+            String id = idOf(write);
+            // null for a new or deleted document
+            write.rev = id == null ? null : revisions.get(id);
+            write.revResolved = true;
+            // streamed documents are written with write.rev
+            if (write.document != null) {
+                if (write.rev != null) {
+                    write.document.put(CloudantConst.CLOUDANT_REV, write.rev);
+                } else {
+                    write.document.removeProperty(CloudantConst.CLOUDANT_REV);
+                }
+            }
+        }
+    }
+
+    // the ID the written document has, if any
+    private static String idOf(DocumentWrite write) {
+        if (write.id != null) {
+            return write.id;
+        } else if (write.raw != null) {
+            String id = mapper.headerDocumentId(write.record);
+            return id != null && !id.isEmpty() && !write.raw.isEmpty() ? id : write.raw.getString(CloudantConst.CLOUDANT_DOC_ID);
+        } else if (write.document == null) {
+            return mapper.documentId(write.record);
+        }
+        Object id = write.document.get(CloudantConst.CLOUDANT_DOC_ID);
+        return id instanceof String ? (String) id : null;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.ChangesResult;
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.cloudant.v1.model.PostChangesOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// Reads the _changes feed with a longpoll request for each batch, from the calling thread
+// Without a timeout, each request is a normal one which returns straight away, with no changes if there are none yet
+class LongpollChangesFeed implements ChangesFeed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LongpollChangesFeed.class);
+
+    private final Cloudant service;
+    private final String db;
+    private final boolean includeDocs;
+    private final long timeoutMs;
+    private String since;
+
+    LongpollChangesFeed(Cloudant service, String db, String since, boolean includeDocs) {
+        this(service, db, since, includeDocs, 60 * 1000L);
+    }
+
+    // with a timeout of 0 for normal requests
+    LongpollChangesFeed(Cloudant service, String db, String since, boolean includeDocs, long timeoutMs) {
+        this.service = service;
+        this.db = db;
+        this.since = since;
+        this.includeDocs = includeDocs;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public List<ChangesResultItem> next(int max) {
+        LOG.debug("Process lastSeq: {}", since);
+
+        // the changes feed for initial processing (not continuous yet)
+        PostChangesOptions.Builder builder = new PostChangesOptions.Builder();
+        if (timeoutMs > 0) {
+            builder.feed(PostChangesOptions.Feed.LONGPOLL).timeout(timeoutMs);
+        } else {
+            builder.feed(PostChangesOptions.Feed.NORMAL);
+        }
+        PostChangesOptions postChangesOptions = builder
+                .db(db)
+                .includeDocs(includeDocs)
+                .since(since)
+                .limit(max)
+                .build();
+        ChangesResult cloudantChangesResult = service.postChanges(postChangesOptions).execute().getResult();
+
+        if (cloudantChangesResult != null) {
+            LOG.debug("Got {} changes", cloudantChangesResult.getResults().size());
+            since = cloudantChangesResult.getLastSeq();
+            return cloudantChangesResult.getResults();
+        }
+
+        // Only in case of shutdown
+        return null;
+    }
+
+    @Override
+    public void close() {
+        // nothing to do
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.utils.CloudantConst;
+import com.ibm.cloud.cloudant.kafka.utils.InterfaceConst;
+import com.ibm.cloud.cloudant.kafka.utils.JavaCloudantUtil;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import com.ibm.cloud.sdk.core.service.exception.ConflictException;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The offsets written up to for each topic partition, saved with the documents in a _local document per partition
+// once per flush or offset commit, so that records which were written before a task failed or its partitions were
+// rewound can be skipped when they are consumed again.
+// _local documents aren't replicated and don't show up in _all_docs or _changes.
+class OffsetCheckpoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffsetCheckpoint.class);
+
+    private static final String TOPIC = "topic";
+    private static final String PARTITION = "partition";
+    private static final String OFFSET = "offset";
+
+    private final Map<String, String> props;
+    private final String database;
+    private final String idPrefix;
+
+    // per partition, the revision of its checkpoint and the offset saved in it
+    private final Map<TopicPartition, String> revisions = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> saved = new ConcurrentHashMap<>();
+
+    OffsetCheckpoint(Map<String, String> props) {
+        this.props = props;
+        this.database = props.get(InterfaceConst.DB);
+        this.idPrefix = String.format("kafka-connect-%s-", props.get("name"));
+    }
+
+    // the next offset to consume of each partition which has a checkpoint
+    // throws RuntimeException if a checkpoint could not be read
+    Map<TopicPartition, Long> load(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (TopicPartition tp : partitions) {
+            Document checkpoint = JavaCloudantUtil.getLocalDocument(props, database, idFor(tp));
+            if (checkpoint == null) {
+                revisions.remove(tp);
+                saved.remove(tp);
+                continue;
+            }
+            revisions.put(tp, (String) checkpoint.get(CloudantConst.CLOUDANT_REV));
+            Object offset = checkpoint.get(OFFSET);
+            if (offset instanceof Number) {
+                saved.put(tp, ((Number) offset).longValue());
+                offsets.put(tp, ((Number) offset).longValue());
+            }
+        }
+        if (!offsets.isEmpty()) {
+            LOG.info("Loaded offset checkpoints from {}: {}", database, offsets);
+        }
+        return offsets;
+    }
+
+    // the next offset to write of each partition with a checkpoint, as it was last saved or loaded
+    Map<TopicPartition, Long> saved() {
+        return new HashMap<>(saved);
+    }
+
+    // save the offsets which are past those last saved or loaded
+    // a checkpoint which can't be saved is only a missed optimisation, so failures are logged rather than thrown
+    void save(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> offset : offsets.entrySet()) {
+            save(offset.getKey(), offset.getValue().offset());
+        }
+    }
+
+    private void save(TopicPartition tp, long next) {
+        Long last = saved.get(tp);
+        // a partition's checkpoint only moves forward
+        if (last != null && next <= last) {
+            return;
+        }
+        try {
+            try {
+                revisions.put(tp, put(tp, next, revisions.get(tp)));
+            } catch (ConflictException ce) {
+                // saved by another task since, eg before a rebalance; write over it with its current revision
+                Document current = JavaCloudantUtil.getLocalDocument(props, database, idFor(tp));
+                revisions.put(tp, put(tp, next, current == null ? null : (String) current.get(CloudantConst.CLOUDANT_REV)));
+            }
+            saved.put(tp, next);
+        } catch (RuntimeException re) {
+            LOG.warn("Could not save offset checkpoint {} for {} to {}", next, tp, database, re);
+        }
+    }
+
+    // forget partitions which are no longer assigned, as another task will save their checkpoints
+    void remove(Collection<TopicPartition> partitions) {
+        for (TopicPartition tp : partitions) {
+            revisions.remove(tp);
+            saved.remove(tp);
+        }
+    }
+
+    private String put(TopicPartition tp, long next, String rev) {
+        Document checkpoint = new Document();
+        if (rev != null) {
+            checkpoint.put(CloudantConst.CLOUDANT_REV, rev);
+        }
+        checkpoint.put(TOPIC, tp.topic());
+        checkpoint.put(PARTITION, tp.partition());
+        checkpoint.put(OFFSET, next);
+        return JavaCloudantUtil.putLocalDocument(props, database, idFor(tp), checkpoint);
+    }
+
+    private String idFor(TopicPartition tp) {
+        return idPrefix + tp.topic() + "-" + tp.partition();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+// Tracks records handed to the task until they have been written, so that only offsets of records which are
+// done (and of every record before them in the same partition) are committed
+class OffsetTracker {
+
+    // per partition, records in the order they were received
+    private final Map<TopicPartition, Deque<Entry>> pending = new HashMap<>();
+
+    // per partition, the next offset to commit
+    private final Map<TopicPartition, Long> committable = new HashMap<>();
+
+    static class Entry {
+
+        private final long offset;
+
+        private volatile boolean done = false;
+
+        private Entry(long offset) {
+            this.offset = offset;
+        }
+
+        void markDone() {
+            done = true;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+    }
+
+    synchronized Entry track(SinkRecord record) {
+        // use the original partition and offset, these are unaffected by transforms
+        TopicPartition tp = new TopicPartition(record.originalTopic(), record.originalKafkaPartition());
+        Entry entry = new Entry(record.originalKafkaOffset());
+        pending.computeIfAbsent(tp, k -> new ArrayDeque<>()).add(entry);
+        return entry;
+    }
+
+    synchronized Map<TopicPartition, OffsetAndMetadata> committableOffsets(Collection<TopicPartition> assigned) {
+        for (Map.Entry<TopicPartition, Deque<Entry>> partition : pending.entrySet()) {
+            Deque<Entry> entries = partition.getValue();
+            while (!entries.isEmpty() && entries.peekFirst().isDone()) {
+                committable.put(partition.getKey(), entries.pollFirst().offset + 1);
+            }
+        }
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (Map.Entry<TopicPartition, Long> offset : committable.entrySet()) {
+            if (assigned.contains(offset.getKey())) {
+                offsets.put(offset.getKey(), new OffsetAndMetadata(offset.getValue()));
+            }
+        }
+        return offsets;
+    }
+
+    // of every partition tracked
+    synchronized Map<TopicPartition, OffsetAndMetadata> committableOffsets() {
+        return committableOffsets(pending.keySet());
+    }
+
+    synchronized void remove(Collection<TopicPartition> partitions) {
+        for (TopicPartition tp : partitions) {
+            pending.remove(tp);
+            committable.remove(tp);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.google.gson.Gson;
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.ChangesResult;
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.cloudant.v1.model.PostChangesOptions;
+import com.ibm.cloud.sdk.core.service.exception.ServiceResponseException;
+import com.ibm.cloud.sdk.core.util.GsonSingleton;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+// Reads the _changes feed with a longpoll request for each batch, like LongpollChangesFeed, but from a background
+// thread which requests the next batch as soon as it has the last one, so the request for a batch overlaps with the
+// task producing the ones before it. Up to depth batches are held, and no more are requested while the responses
+// held add up to maxBytes or more.
+class PrefetchChangesFeed implements ChangesFeed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrefetchChangesFeed.class);
+
+    private static final Gson gson = GsonSingleton.getGsonWithoutPrettyPrinting();
+
+    private static class Batch {
+        private final List<ChangesResultItem> changes;
+        // the size of the response it came from
+        private final long bytes;
+
+        private Batch(List<ChangesResultItem> changes, long bytes) {
+            this.changes = changes;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Cloudant service;
+    private final String db;
+    private final boolean includeDocs;
+    private final int batchSize;
+    private final int depth;
+    private final long maxBytes;
+    private final Thread fetcher;
+
+    // guarded by this
+    private final Deque<Batch> batches = new ArrayDeque<>();
+    private long bytes = 0;
+    private RuntimeException failure;
+
+    private volatile boolean running = true;
+
+    // only used by the fetcher thread
+    private String since;
+    private long backoff = ContinuousChangesFeed.RETRY_MIN_MS;
+
+    PrefetchChangesFeed(Cloudant service, String db, String since, boolean includeDocs, int batchSize, int depth, long maxBytes) {
+        this.service = service;
+        this.db = db;
+        this.since = since;
+        this.includeDocs = includeDocs;
+        this.batchSize = batchSize;
+        this.depth = depth;
+        this.maxBytes = maxBytes;
+        this.fetcher = new Thread(this::run, "cloudant-changes-" + db);
+        this.fetcher.setDaemon(true);
+        this.fetcher.start();
+    }
+
+    // returns up to max changes of the next batch; if it has more than that, the rest are returned next time
+    @Override
+    public synchronized List<ChangesResultItem> next(int max) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + ContinuousChangesFeed.POLL_WAIT_MS;
+        long wait;
+        while (batches.isEmpty() && failure == null && (wait = deadline - System.currentTimeMillis()) > 0) {
+            wait(wait);
+        }
+        if (failure != null) {
+            throw new ConnectException("Could not read the changes feed of " + db, failure);
+        }
+        Batch batch = batches.poll();
+        if (batch == null) {
+            return Collections.emptyList();
+        }
+        int size = batch.changes.size();
+        if (size > max) {
+            // keep the rest at the head, with their share of the response's bytes
+            Batch rest = new Batch(batch.changes.subList(max, size), batch.bytes * (size - max) / size);
+            batches.addFirst(rest);
+            bytes -= batch.bytes - rest.bytes;
+            notifyAll();
+            return batch.changes.subList(0, max);
+        }
+        bytes -= batch.bytes;
+        notifyAll();
+        return batch.changes;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        fetcher.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                synchronized (this) {
+                    while (running && (batches.size() >= depth || bytes >= maxBytes)) {
+                        wait();
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+                try {
+                    Batch batch = fetch();
+                    synchronized (this) {
+                        batches.add(batch);
+                        bytes += batch.bytes;
+                        notifyAll();
+                    }
+                    backoff = ContinuousChangesFeed.RETRY_MIN_MS;
+                    continue;
+                } catch (ServiceResponseException sre) {
+                    if (!ChangesFeed.isRetryable(sre)) {
+                        LOG.error("Changes feed of {} failed with status {}", db, sre.getStatusCode(), sre);
+                        synchronized (this) {
+                            failure = sre;
+                            notifyAll();
+                        }
+                        return;
+                    }
+                    LOG.warn("Changes feed of {} failed with status {}, trying again in {} ms", db, sre.getStatusCode(), backoff);
+                } catch (IOException | RuntimeException e) {
+                    if (!running) {
+                        return;
+                    }
+                    LOG.warn("Changes feed of {} failed, trying again in {} ms", db, backoff, e);
+                }
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, ContinuousChangesFeed.RETRY_MAX_MS);
+            }
+        } catch (InterruptedException ie) {
+            // closed
+        }
+    }
+
+    private Batch fetch() throws IOException {
+        LOG.debug("Prefetch changes of {} from {}", db, since);
+        PostChangesOptions postChangesOptions = new PostChangesOptions.Builder()
+                .feed(PostChangesOptions.Feed.LONGPOLL)
+                .timeout(60 * 1000L)
+                .db(db)
+                .includeDocs(includeDocs)
+                .since(since)
+                .limit(batchSize)
+                .build();
+        try (CountingInputStream in = new CountingInputStream(service.postChangesAsStream(postChangesOptions).execute().getResult());
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            ChangesResult result = gson.fromJson(reader, ChangesResult.class);
+            if (result == null) {
+                throw new IOException("Empty changes response from " + db);
+            }
+            LOG.debug("Got {} changes in {} bytes", result.getResults().size(), in.count);
+            since = result.getLastSeq();
+            return new Batch(result.getResults(), in.count);
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
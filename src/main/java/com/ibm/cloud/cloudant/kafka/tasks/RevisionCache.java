@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded least-recently-used map of document ID to the latest revision the task has seen.
+// It's only a hint: a stale revision gives a conflict, and the document is then looked up again.
+// Can be saved to a memory-mapped file and loaded from it again, so a restarted task doesn't start empty.
+class RevisionCache {
+
+    private final LinkedHashMap<String, String> revisions;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    RevisionCache(int maxSize) {
+        this.revisions = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    synchronized String get(String id) {
+        String rev = revisions.get(id);
+        (rev == null ? misses : hits).incrementAndGet();
+        return rev;
+    }
+
+    synchronized void put(String id, String rev) {
+        revisions.put(id, rev);
+    }
+
+    synchronized void remove(String id) {
+        revisions.remove(id);
+    }
+
+    synchronized int size() {
+        return revisions.size();
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    // file format: entry count, then the length and UTF-8 bytes of each ID and revision, least recently used first
+    synchronized void save(Path file) throws IOException {
+        List<byte[]> entries = new ArrayList<>(revisions.size() * 2);
+        long size = Integer.BYTES;
+        for (Map.Entry<String, String> entry : revisions.entrySet()) {
+            byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] rev = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            entries.add(id);
+            entries.add(rev);
+            size += 2 * Integer.BYTES + id.length + rev.length;
+        }
+        // write a new file and replace the old one with it, so a crash part way through doesn't leave a broken file
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(revisions.size());
+            for (byte[] bytes : entries) {
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+            buffer.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // returns false if there is no file to load from
+    synchronized boolean load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        Map<String, String> loaded = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                String id = readString(buffer);
+                loaded.put(id, readString(buffer));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Revision cache file " + file + " is truncated or corrupt", e);
+        }
+        // in least recently used order, so the most recently used are kept if there are too many
+        revisions.putAll(loaded);
+        return true;
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// The changes to the documents in one shard of a database, when the documents are divided between several tasks by
+// the hash of their IDs. Each task reads the whole feed, so it should be read without include_docs and the documents
+// in the shard fetched afterwards.
+class ShardChangesFeed implements ChangesFeed {
+
+    private final ChangesFeed feed;
+    private final int shard;
+    private final int shards;
+
+    ShardChangesFeed(ChangesFeed feed, int shard, int shards) {
+        this.feed = feed;
+        this.shard = shard;
+        this.shards = shards;
+    }
+
+    @Override
+    public List<ChangesResultItem> next(int max) throws InterruptedException {
+        List<ChangesResultItem> changes = feed.next(max);
+        if (changes == null) {
+            return null;
+        }
+        List<ChangesResultItem> inShard = new ArrayList<>(changes.size() / shards + 1);
+        for (ChangesResultItem change : changes) {
+            if (shardFor(change.getId(), shards) == shard) {
+                inShard.add(change);
+            }
+        }
+        return inShard;
+    }
+
+    @Override
+    public void close() {
+        feed.close();
+    }
+
+    static int shardFor(String id, int shards) {
+        return Utils.toPositive(Utils.murmur2(id.getBytes(StandardCharsets.UTF_8))) % shards;
+    }
+}
@@ -16,12 +16,30 @@ package com.ibm.cloud.cloudant.kafka.tasks;
 import com.ibm.cloud.cloudant.kafka.utils.InterfaceConst;
 import com.ibm.cloud.cloudant.kafka.utils.MessageKey;
 import com.ibm.cloud.cloudant.kafka.utils.ResourceBundleUtil;
+import com.ibm.cloud.cloudant.kafka.validators.TemplateValidator;
+import com.ibm.cloud.cloudant.kafka.validators.ListRecommender;
 import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class SinkConnectorConfig extends ConnectorConfig {
 
+    protected static final ListRecommender VALID_WRITE_MODES = new ListRecommender(
+            InterfaceConst.WRITE_MODE_INSERT,
+            InterfaceConst.WRITE_MODE_UPSERT,
+            InterfaceConst.WRITE_MODE_REPLICATE
+    );
+
+    protected static final ListRecommender VALID_ID_STRATEGIES = new ListRecommender(
+            InterfaceConst.ID_STRATEGY_RECORD,
+            InterfaceConst.ID_STRATEGY_OFFSET,
+            InterfaceConst.ID_STRATEGY_KEY
+    );
+
     public static final ConfigDef CONFIG_DEF = baseConfigDef();
 
     public static ConfigDef baseConfigDef() {
@@ -39,7 +57,302 @@ public class SinkConnectorConfig extends ConnectorConfig {
                         KAFKA_GROUP,
                         order++,
                         ConfigDef.Width.SHORT,
-                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BATCH_SIZE_DISP));
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BATCH_SIZE_DISP))
+                // batch size in bytes
+                .define(InterfaceConst.BATCH_MAX_BYTES,
+                        ConfigDef.Type.INT,
+                        InterfaceConst.DEFAULT_BATCH_MAX_BYTES_SINK,
+                        ConfigDef.Range.atLeast(InterfaceConst.BATCH_MAX_BYTES_MIN_SINK),
+                        ConfigDef.Importance.MEDIUM,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BATCH_MAX_BYTES_SINK_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BATCH_MAX_BYTES_DISP))
+                // asynchronous writes
+                .define(InterfaceConst.WRITE_ASYNC,
+                        ConfigDef.Type.BOOLEAN,
+                        false,
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_ASYNC_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_ASYNC_DISP))
+                // concurrent write lanes
+                .define(InterfaceConst.WRITE_LANES,
+                        ConfigDef.Type.INT,
+                        InterfaceConst.DEFAULT_WRITE_LANES,
+                        ConfigDef.Range.between(InterfaceConst.WRITE_LANES_MIN, InterfaceConst.WRITE_LANES_MAX),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_LANES_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_LANES_DISP))
+                // buffer limits
+                .define(InterfaceConst.BUFFER_MAX_RECORDS,
+                        ConfigDef.Type.INT,
+                        0,
+                        ConfigDef.Range.atLeast(0),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BUFFER_MAX_RECORDS_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BUFFER_MAX_RECORDS_DISP))
+                .define(InterfaceConst.BUFFER_MAX_BYTES,
+                        ConfigDef.Type.LONG,
+                        0L,
+                        ConfigDef.Range.atLeast(0),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BUFFER_MAX_BYTES_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BUFFER_MAX_BYTES_DISP))
+                .define(InterfaceConst.BUFFER_SPILL_DIR,
+                        ConfigDef.Type.STRING,
+                        NULL_DEFAULT,
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BUFFER_SPILL_DIR_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.LONG,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BUFFER_SPILL_DIR_DISP))
+                .define(InterfaceConst.BUFFER_SPILL_MAX_BYTES,
+                        ConfigDef.Type.LONG,
+                        1024L * 1024 * 1024,
+                        ConfigDef.Range.atLeast(0),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BUFFER_SPILL_MAX_BYTES_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BUFFER_SPILL_MAX_BYTES_DISP))
+                // retries of failed documents
+                .define(InterfaceConst.WRITE_RETRIES,
+                        ConfigDef.Type.INT,
+                        3,
+                        ConfigDef.Range.atLeast(0),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_RETRIES_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_RETRIES_DISP))
+                .define(InterfaceConst.WRITE_RETRY_BACKOFF_MS,
+                        ConfigDef.Type.LONG,
+                        1000L,
+                        ConfigDef.Range.atLeast(0),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_RETRY_BACKOFF_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_RETRY_BACKOFF_DISP))
+                .define(InterfaceConst.WRITE_COALESCE,
+                        ConfigDef.Type.BOOLEAN,
+                        false,
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_COALESCE_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_COALESCE_DISP))
+                .define(InterfaceConst.WRITE_MODE,
+                        ConfigDef.Type.STRING,
+                        InterfaceConst.WRITE_MODE_INSERT,
+                        VALID_WRITE_MODES,
+                        ConfigDef.Importance.MEDIUM,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_MODE_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_MODE_DISP),
+                        VALID_WRITE_MODES)
+                .define(InterfaceConst.WRITE_STREAMING,
+                        ConfigDef.Type.BOOLEAN,
+                        false,
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_STREAMING_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_STREAMING_DISP))
+                .define(InterfaceConst.WRITE_PASSTHROUGH,
+                        ConfigDef.Type.BOOLEAN,
+                        false,
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_PASSTHROUGH_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_WRITE_PASSTHROUGH_DISP))
+                .define(InterfaceConst.CONVERSION_THREADS,
+                        ConfigDef.Type.INT,
+                        1,
+                        ConfigDef.Range.atLeast(1),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_CONVERSION_THREADS_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_CONVERSION_THREADS_DISP))
+                // how to create the database if it doesn't exist
+                .define(InterfaceConst.DB_PARTITIONED,
+                        ConfigDef.Type.BOOLEAN,
+                        false,
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_PARTITIONED_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_PARTITIONED_DISP))
+                .define(InterfaceConst.DB_SHARDS,
+                        ConfigDef.Type.INT,
+                        0,
+                        ConfigDef.Range.atLeast(0),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_SHARDS_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_SHARDS_DISP))
+                // which database each record is written to
+                .define(InterfaceConst.DB_ROUTE,
+                        ConfigDef.Type.STRING,
+                        null,
+                        new TemplateValidator(),
+                        ConfigDef.Importance.MEDIUM,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_ROUTE_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        ConfigDef.Width.LONG,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_ROUTE_DISP))
+                .define(InterfaceConst.DB_ROUTE_CONCURRENCY,
+                        ConfigDef.Type.INT,
+                        4,
+                        ConfigDef.Range.atLeast(1),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_ROUTE_CONCURRENCY_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_ROUTE_CONCURRENCY_DISP))
+                // partitioned databases
+                .define(InterfaceConst.PARTITION_KEY,
+                        ConfigDef.Type.STRING,
+                        null,
+                        new TemplateValidator(),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_PARTITION_KEY_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        ConfigDef.Width.LONG,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_PARTITION_KEY_DISP))
+                .define(InterfaceConst.PARTITION_BATCHING,
+                        ConfigDef.Type.BOOLEAN,
+                        false,
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_PARTITION_BATCHING_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_PARTITION_BATCHING_DISP))
+                .define(InterfaceConst.TOMBSTONE_DELETE,
+                        ConfigDef.Type.BOOLEAN,
+                        false,
+                        ConfigDef.Importance.MEDIUM,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_TOMBSTONE_DELETE_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_TOMBSTONE_DELETE_DISP))
+                // revision cache for upserts and deletes
+                .define(InterfaceConst.REV_CACHE_SIZE,
+                        ConfigDef.Type.INT,
+                        0,
+                        ConfigDef.Range.atLeast(0),
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_REV_CACHE_SIZE_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_REV_CACHE_SIZE_DISP))
+                .define(InterfaceConst.REV_CACHE_DIR,
+                        ConfigDef.Type.STRING,
+                        NULL_DEFAULT,
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_REV_CACHE_DIR_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.LONG,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_REV_CACHE_DIR_DISP))
+                // replaying records after a failure
+                .define(InterfaceConst.ID_STRATEGY,
+                        ConfigDef.Type.STRING,
+                        InterfaceConst.ID_STRATEGY_RECORD,
+                        VALID_ID_STRATEGIES,
+                        ConfigDef.Importance.MEDIUM,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_ID_STRATEGY_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_ID_STRATEGY_DISP),
+                        VALID_ID_STRATEGIES)
+                .define(InterfaceConst.OFFSET_CHECKPOINT,
+                        ConfigDef.Type.BOOLEAN,
+                        false,
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_OFFSET_CHECKPOINT_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        ConfigDef.Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_OFFSET_CHECKPOINT_DISP))
+                // more accounts to spread documents across
+                .define(InterfaceConst.ACCOUNTS,
+                        ConfigDef.Type.LIST,
+                        "",
+                        ConfigDef.Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_ACCOUNTS_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        ConfigDef.Width.LONG,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_ACCOUNTS_DISP));
+    }
+
+    /**
+     * Get the connection properties of each account documents are written to: the configured account first, then
+     * each of {@code cloudant.accounts}. Each of those has its own properties prefixed with
+     * {@code cloudant.accounts.<account>.}, including at least its URL, and shares any others with the configured
+     * account.
+     *
+     * @param props connector properties
+     * @return properties of each account, each with its own client name
+     * @throws ConfigException if an account has no URL
+     */
+    public static List<Map<String, String>> accountsProperties(Map<String, String> props) {
+        List<Map<String, String>> accounts = new ArrayList<>();
+        accounts.add(props);
+        Object names = ConfigDef.parseType(InterfaceConst.ACCOUNTS, props.getOrDefault(InterfaceConst.ACCOUNTS, ""), ConfigDef.Type.LIST);
+        for (Object name : (List<?>) names) {
+            String prefix = InterfaceConst.ACCOUNTS + "." + name + ".";
+            Map<String, String> accountProps = new HashMap<>(props);
+            props.forEach((key, value) -> {
+                if (key.startsWith(prefix)) {
+                    accountProps.put(key.substring(prefix.length()), value);
+                }
+            });
+            if (!props.containsKey(prefix + InterfaceConst.URL)) {
+                throw new ConfigException(String.format(ResourceBundleUtil.get(MessageKey.VALIDATION_ACCOUNT_URL_MUST_BE_SET),
+                        prefix + InterfaceConst.URL, name, InterfaceConst.ACCOUNTS));
+            }
+            // clients are cached by name, so each account needs its own
+            accountProps.put("name", props.get("name") + "#" + name);
+            accounts.add(accountProps);
+        }
+        return accounts;
     }
 
     protected SinkConnectorConfig(ConfigDef subclassConfigDef, Map<String, String> originals) {
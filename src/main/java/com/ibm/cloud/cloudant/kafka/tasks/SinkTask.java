@@ -1,5 +1,5 @@
 /*
- * Copyright © 2016, 2022 IBM Corp. All rights reserved.
+ * Copyright © 2016, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -14,29 +14,57 @@
 package com.ibm.cloud.cloudant.kafka.tasks;
 
 import com.ibm.cloud.cloudant.kafka.utils.InterfaceConst;
-import com.ibm.cloud.cloudant.kafka.utils.JavaCloudantUtil;
+import com.ibm.cloud.cloudant.kafka.utils.JsonSizeEstimator;
 import com.ibm.cloud.cloudant.kafka.SinkConnector;
 import com.ibm.cloud.cloudant.kafka.mappers.SinkRecordToDocument;
-import com.ibm.cloud.cloudant.v1.model.Document;
-import com.ibm.cloud.cloudant.v1.model.DocumentResult;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.metrics.Gauge;
+import org.apache.kafka.common.metrics.PluginMetrics;
 import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.DataException;
 import org.apache.kafka.connect.sink.ErrantRecordReporter;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.apache.kafka.connect.sink.SinkTaskContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class SinkTask extends org.apache.kafka.connect.sink.SinkTask {
 
     private static Logger LOG = LoggerFactory.getLogger(SinkTask.class);
 
+    // how often the revision cache is saved to its file while the task runs
+    static final long REV_CACHE_SAVE_INTERVAL_MS = 60 * 1000L;
+
+    // how many chunks of spilled records each flush writes, the rest being left for the next commit, so that a full
+    // spill file doesn't hold up the task for as long as it takes to write all of it
+    static final int SPILL_CHUNKS_PER_FLUSH = 10;
+
     private SinkConnectorConfig config;
 
     public static int batchSize = 0;
@@ -45,9 +73,54 @@ public class SinkTask extends org.apache.kafka.connect.sink.SinkTask {
 
     private ErrantRecordReporter reporter;
 
+    private DocumentWriter documentWriter;
+
+    // latest revisions of documents we've written, when upserting or deleting
+    private RevisionCache revisionCache = null;
+    private Path revisionCacheFile = null;
+    // when the cache was last saved to its file, which it is at most once an interval when offsets are committed
+    private long revisionCacheSaved = 0;
+
     // will be constructed on-demand
     private List<SinkRecord> accumulatedSinkRecords = null;
 
+    // concurrent write lanes: all records for the same document ID go to the same lane, and each lane writes its
+    // batches one at a time, so updates to a document are never reordered
+    private int laneCount = 1;
+    private ExecutorService[] lanes = null;
+    private AtomicInteger nextLaneForNoId = new AtomicInteger();
+
+    // when writing asynchronously: the partial batch for each lane and its estimated size, the records yet to be
+    // acknowledged, and the first failure hit by any lane (if any)
+    private boolean asyncWrites = false;
+    private List<List<DocumentWrite>> laneWrites = null;
+    private long[] laneBytes = null;
+    private long batchMaxBytes = 0;
+    private final OffsetTracker offsetTracker = new OffsetTracker();
+    private final AtomicReference<RuntimeException> asyncFailure = new AtomicReference<>();
+
+    // everything held until it is written counts towards the buffer limits; when they are exceeded, consumption is
+    // paused until enough has been written
+    private BufferLimiter bufferLimiter = null;
+    private boolean paused = false;
+
+    // when writing synchronously with a spill directory, records with no room in memory are appended to a file instead
+    // of pausing consumption; consumption is only paused when the file is full
+    private SpillFile spillFile = null;
+    private Path spillPath = null;
+    private long spillMaxBytes = 0;
+
+    // when checkpointing offsets in Cloudant: per partition, the next offset to write from the checkpoint it had when
+    // it was assigned, until records reach it
+    private OffsetCheckpoint offsetCheckpoint = null;
+    private final Map<TopicPartition, Long> checkpointed = new HashMap<>();
+
+    // documents without an ID get one from their key, so the same key must go to the same lane
+    private boolean keyIds = false;
+
+    // raw JSON values are written as they are, so they count as their own size rather than as serialized bytes
+    private boolean passthrough = false;
+
     @Override
     public String version() {
         return new SinkConnector().version();
@@ -55,16 +128,194 @@ public class SinkTask extends org.apache.kafka.connect.sink.SinkTask {
 
     @Override
     public void put(Collection<SinkRecord> sinkRecords) {
-        if (accumulatedSinkRecords == null) {
-            accumulatedSinkRecords = new LinkedList<>();
-        }
         LOG.info("Thread[{}].sinkRecords = {}", Thread.currentThread().getId(), sinkRecords.size());
-        accumulatedSinkRecords.addAll(sinkRecords);
+        if (!checkpointed.isEmpty()) {
+            sinkRecords = skipCheckpointed(sinkRecords);
+        }
+        if (asyncWrites) {
+            throwIfAsyncFailed();
+            // hand off every full batch to its lane, keeping back any remainder until more records arrive
+            // a batch is full at batch.size records or batch.max.bytes, whichever comes first
+            for (SinkRecord sinkRecord : sinkRecords) {
+                int lane = laneFor(sinkRecord);
+                DocumentWrite write = new DocumentWrite(sinkRecord, JsonSizeEstimator.estimate(sinkRecord.value(), passthrough));
+                bufferLimiter.add(1, write.bufferedBytes);
+                List<DocumentWrite> batch = laneWrites.get(lane);
+                if (!batch.isEmpty() && laneBytes[lane] + write.bufferedBytes > batchMaxBytes) {
+                    submitBatch(lane);
+                    batch = laneWrites.get(lane);
+                }
+                batch.add(write);
+                laneBytes[lane] += write.bufferedBytes;
+                if (batch.size() >= batchSize || laneBytes[lane] >= batchMaxBytes) {
+                    submitBatch(lane);
+                }
+            }
+        } else if (spillFile != null && (!spillFile.isEmpty() || bufferLimiter.isAboveHighWater())) {
+            // the records in memory are written before those in the file, so once records are spilled, every record
+            // is spilled until the file has been written
+            spill(sinkRecords);
+        } else {
+            if (accumulatedSinkRecords == null) {
+                accumulatedSinkRecords = new LinkedList<>();
+            }
+            accumulatedSinkRecords.addAll(sinkRecords);
+            if (bufferLimiter.isEnabled()) {
+                bufferLimiter.add(sinkRecords.size(), sinkRecords.stream().mapToLong(bufferLimiter::sizeOf).sum());
+            }
+        }
+        applyBackpressure();
+    }
+
+    // drop records which were written before their partition's checkpoint was saved
+    private Collection<SinkRecord> skipCheckpointed(Collection<SinkRecord> sinkRecords) {
+        List<SinkRecord> toWrite = new ArrayList<>(sinkRecords.size());
+        for (SinkRecord sinkRecord : sinkRecords) {
+            TopicPartition tp = new TopicPartition(sinkRecord.originalTopic(), sinkRecord.originalKafkaPartition());
+            Long next = checkpointed.get(tp);
+            if (next == null) {
+                toWrite.add(sinkRecord);
+            } else if (sinkRecord.originalKafkaOffset() >= next) {
+                // past the checkpoint, so nothing more to skip
+                checkpointed.remove(tp);
+                toWrite.add(sinkRecord);
+            }
+        }
+        if (toWrite.size() < sinkRecords.size()) {
+            LOG.info("Skipped {} records already written before their offset checkpoints", sinkRecords.size() - toWrite.size());
+        }
+        return toWrite;
+    }
+
+    private void spill(Collection<SinkRecord> sinkRecords) {
+        if (sinkRecords.isEmpty()) {
+            return;
+        }
+        boolean started = spillFile.isEmpty();
+        try {
+            spillFile.append(sinkRecords);
+        } catch (IOException | DataException e) {
+            throw new ConnectException("Could not spill records to " + spillPath, e);
+        }
+        if (started) {
+            LOG.info("Spilling records to {} with {} records ({} bytes) waiting to be written to {}", spillPath,
+                    bufferLimiter.records(), bufferLimiter.bytes(), config.getString(InterfaceConst.URL));
+            // write what we're holding
+            context.requestCommit();
+        }
+    }
+
+    // pause consumption above the high-water mark and ask for a commit, which writes what we're holding; resume once
+    // we're back below the low-water mark
+    // when spilling, the marks are for the spill file instead
+    private void applyBackpressure() {
+        if (!paused && isAboveHighWater()) {
+            LOG.info("Pausing consumption with {} records ({} bytes) waiting to be written to {}",
+                    heldRecords(), heldBytes(), config.getString(InterfaceConst.URL));
+            paused = true;
+            context.pause(context.assignment().toArray(new TopicPartition[0]));
+            context.requestCommit();
+        } else if (paused && isBelowLowWater()) {
+            LOG.info("Resuming consumption with {} records ({} bytes) waiting to be written to {}",
+                    heldRecords(), heldBytes(), config.getString(InterfaceConst.URL));
+            paused = false;
+            context.resume(context.assignment().toArray(new TopicPartition[0]));
+        }
+    }
+
+    private boolean isAboveHighWater() {
+        if (spillFile != null) {
+            return spillMaxBytes > 0 && spillFile.bytes() >= spillMaxBytes;
+        }
+        return bufferLimiter.isAboveHighWater();
+    }
+
+    private boolean isBelowLowWater() {
+        if (spillFile != null) {
+            return spillMaxBytes <= 0 || spillFile.bytes() < spillMaxBytes / 2;
+        }
+        return bufferLimiter.isBelowLowWater();
+    }
+
+    // spilled bytes are their size in the file rather than an estimate
+    private long heldRecords() {
+        return bufferLimiter.records() + (spillFile == null ? 0 : spillFile.records());
+    }
+
+    private long heldBytes() {
+        return bufferLimiter.bytes() + (spillFile == null ? 0 : spillFile.bytes());
+    }
+
+    @Override
+    public void open(Collection<TopicPartition> partitions) {
+        // consumed from their committed offsets, so anything still held for them would be written twice
+        if (!asyncWrites) {
+            dropHeld(partitions);
+        }
+        // newly assigned partitions must wait too
+        if (paused) {
+            context.pause(partitions.toArray(new TopicPartition[0]));
+        }
+        if (offsetCheckpoint != null) {
+            try {
+                checkpointed.putAll(offsetCheckpoint.load(partitions));
+            } catch (RuntimeException re) {
+                // records before the checkpoints are written again, as they would be without them
+                LOG.warn("Could not load offset checkpoints for {}", partitions, re);
+            }
+        }
     }
 
     @Override
     public void stop() {
-        // nothing to do
+        if (lanes != null) {
+            for (ExecutorService lane : lanes) {
+                lane.shutdown();
+            }
+            try {
+                for (ExecutorService lane : lanes) {
+                    if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                        LOG.warn("Timed out waiting for outstanding writes to {}", config.getString(InterfaceConst.URL));
+                        lane.shutdownNow();
+                    }
+                }
+            } catch (InterruptedException ie) {
+                for (ExecutorService lane : lanes) {
+                    lane.shutdownNow();
+                }
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (documentWriter != null) {
+            documentWriter.close();
+        }
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException ioe) {
+                LOG.warn("Could not delete spill file {}", spillPath, ioe);
+            }
+        }
+        if (revisionCacheFile != null) {
+            saveRevisionCache();
+        }
+    }
+
+    private void saveRevisionCache() {
+        try {
+            revisionCache.save(revisionCacheFile);
+            revisionCacheSaved = System.currentTimeMillis();
+            LOG.info("Saved {} revisions to {}", revisionCache.size(), revisionCacheFile);
+        } catch (IOException ioe) {
+            LOG.warn("Could not save revisions to {}", revisionCacheFile, ioe);
+        }
+    }
+
+    // saved while the task runs too, so that a task which didn't stop cleanly doesn't restart with an empty cache
+    private void saveRevisionCacheIfDue() {
+        if (revisionCacheFile != null && System.currentTimeMillis() - revisionCacheSaved >= REV_CACHE_SAVE_INTERVAL_MS) {
+            saveRevisionCache();
+        }
     }
 
     /**
@@ -76,60 +327,393 @@ public class SinkTask extends org.apache.kafka.connect.sink.SinkTask {
     public void start(Map<String, String> props) {
         config = new SinkConnectorConfig(SinkConnectorConfig.CONFIG_DEF, props);
         batchSize = config.getInt(InterfaceConst.BATCH_SIZE);
+        String writeMode = config.getString(InterfaceConst.WRITE_MODE);
+        if ((InterfaceConst.WRITE_MODE_UPSERT.equalsIgnoreCase(writeMode)
+                || (config.getBoolean(InterfaceConst.TOMBSTONE_DELETE) && !InterfaceConst.WRITE_MODE_REPLICATE.equalsIgnoreCase(writeMode)))
+                && config.getInt(InterfaceConst.REV_CACHE_SIZE) > 0) {
+            startRevisionCache(props);
+        }
+        documentWriter = new DocumentWriter(config, reporter, revisionCache);
+        keyIds = InterfaceConst.ID_STRATEGY_KEY.equalsIgnoreCase(config.getString(InterfaceConst.ID_STRATEGY));
+        if (config.getBoolean(InterfaceConst.OFFSET_CHECKPOINT)) {
+            offsetCheckpoint = new OffsetCheckpoint(props);
+        }
+        asyncWrites = config.getBoolean(InterfaceConst.WRITE_ASYNC);
+        laneCount = config.getInt(InterfaceConst.WRITE_LANES);
+        passthrough = config.getBoolean(InterfaceConst.WRITE_PASSTHROUGH);
+        bufferLimiter = new BufferLimiter(config.getInt(InterfaceConst.BUFFER_MAX_RECORDS),
+                config.getLong(InterfaceConst.BUFFER_MAX_BYTES), passthrough);
+        // a single synchronous lane writes from the calling thread
+        if (asyncWrites || laneCount > 1) {
+            lanes = new ExecutorService[laneCount];
+            for (int i = 0; i < laneCount; i++) {
+                String threadName = String.format("cloudant-sink-writer-%s-%d", props.get("name"), i);
+                lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, threadName);
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+        String spillDir = config.getString(InterfaceConst.BUFFER_SPILL_DIR);
+        if (spillDir != null && !asyncWrites) {
+            spillPath = Paths.get(spillDir, String.format("%s-%s.spill", props.get("name"),
+                    props.getOrDefault(InterfaceConst.TASK_INDEX, "0")));
+            spillMaxBytes = config.getLong(InterfaceConst.BUFFER_SPILL_MAX_BYTES);
+            try {
+                spillFile = new SpillFile(spillPath);
+            } catch (IOException ioe) {
+                throw new ConnectException("Could not open spill file " + spillPath, ioe);
+            }
+        }
+        if (asyncWrites) {
+            laneWrites = new ArrayList<>(laneCount);
+            for (int i = 0; i < laneCount; i++) {
+                laneWrites.add(new ArrayList<>());
+            }
+            laneBytes = new long[laneCount];
+            batchMaxBytes = config.getInt(InterfaceConst.BATCH_MAX_BYTES);
+        }
     }
 
-    @Override
-    public void flush(Map<TopicPartition, org.apache.kafka.clients.consumer.OffsetAndMetadata> offsets) {
-
-        List<Document> documentList = new ArrayList<>();
-        if (accumulatedSinkRecords != null && !accumulatedSinkRecords.isEmpty()) {
-            LOG.info("flush called with {} documents to {}", accumulatedSinkRecords.size(), config.getString(InterfaceConst.URL));
-            // Note: _rev is preserved
-            accumulatedSinkRecords.stream()
-                    .map(mapper) // Convert ConnectRecord to Map
-                    .sequential() // Avoid concurrent access to documentList
-                    .forEach(documentList::add);
+    private void startRevisionCache(Map<String, String> props) {
+        revisionCache = new RevisionCache(config.getInt(InterfaceConst.REV_CACHE_SIZE));
+        String dir = config.getString(InterfaceConst.REV_CACHE_DIR);
+        if (dir != null) {
+            revisionCacheFile = Paths.get(dir, String.format("%s-%s.revs", props.get("name"),
+                    props.getOrDefault(InterfaceConst.TASK_INDEX, "0")));
             try {
-                // break down accumulated records into batches to send to cloudant
-                // NB a failure in _any_ batch will currently cause all accumulated records to be marked as uncommitted
-                int nBatches = documentList.size() / batchSize + (documentList.size() % batchSize == 0 ? 0 : 1);
-                LOG.info("flush called with {} batches to {}", nBatches, config.getString(InterfaceConst.URL));
-                for (int b = 0; b < nBatches; b++) {
-                    List<Document> documentSublist = documentList.subList(b * batchSize, Math.min(documentList.size(), (b + 1) * batchSize));
-                    LOG.info("Calling batchWrite with {} documents to {}", documentSublist.size(), config.getString(InterfaceConst.URL));
-                    List<DocumentResult> writeResults = JavaCloudantUtil.batchWrite(config.originalsStrings(), documentSublist);
-                    boolean someFailed = writeResults.stream().anyMatch(doc -> doc.isOk() == null || !doc.isOk());
-                    if (reporter != null && someFailed) {
-                        // logging not needed - user can enable `errors.log.enable` if required
-                        for (int i = 0; i < writeResults.size(); i++) {
-                            DocumentResult writeResult = writeResults.get(i);
-                            if (writeResult.isOk() == null || !writeResult.isOk()) {
-                                reporter.report(accumulatedSinkRecords.get(b * batchSize + i),
-                                        new RuntimeException(String.format("Failed to batch write document to Cloudant with error %s reason %s",
-                                                writeResult.getError(), writeResult.getReason())));
-                            }
-                        }
+                if (revisionCache.load(revisionCacheFile)) {
+                    LOG.info("Loaded {} revisions from {}", revisionCache.size(), revisionCacheFile);
+                }
+            } catch (IOException ioe) {
+                // the cache is only an optimisation, so carry on without what was saved
+                LOG.warn("Could not load revisions from {}", revisionCacheFile, ioe);
+            }
+        }
+        PluginMetrics metrics;
+        try {
+            metrics = context.pluginMetrics();
+        } catch (NoSuchMethodError | UnsupportedOperationException e) {
+            // plugin metrics need Kafka Connect 4.1 or later; the cache works the same without them
+            LOG.info("Revision cache metrics are not available from this version of Kafka Connect");
+            return;
+        }
+        LinkedHashMap<String, String> tags = new LinkedHashMap<>();
+        metrics.addMetric(metrics.metricName("revision-cache-hits", "Number of document revisions found in the revision cache", tags),
+                (Gauge<Long>) (metricConfig, now) -> revisionCache.hits());
+        metrics.addMetric(metrics.metricName("revision-cache-misses", "Number of document revisions not found in the revision cache", tags),
+                (Gauge<Long>) (metricConfig, now) -> revisionCache.misses());
+        metrics.addMetric(metrics.metricName("revision-cache-size", "Number of document revisions in the revision cache", tags),
+                (Gauge<Integer>) (metricConfig, now) -> revisionCache.size());
+    }
+
+    @Override
+    public void flush(Map<TopicPartition, OffsetAndMetadata> offsets) {
+
+        if (asyncWrites) {
+            // hand off whatever is left over and wait for the lanes to catch up
+            submitRemainders();
+            awaitLanes(Arrays.stream(lanes).map(lane -> lane.submit(() -> { })).collect(Collectors.toList()));
+            throwIfAsyncFailed();
+            return;
+        }
+
+        // when checkpointing, the records of this flush in the order they were received, to find how far each
+        // partition has been written
+        OffsetTracker tracker = offsetCheckpoint == null ? null : new OffsetTracker();
+        try {
+            if (accumulatedSinkRecords != null && !accumulatedSinkRecords.isEmpty()) {
+                writeAccumulated(tracker);
+            }
+            // then the spilled records, a chunk at a time; if a chunk fails, what's left of it is kept in memory, ahead
+            // of the rest of the file
+            for (int chunk = 0; chunk < SPILL_CHUNKS_PER_FLUSH && spillFile != null && !spillFile.isEmpty(); chunk++) {
+                try {
+                    accumulatedSinkRecords = new LinkedList<>(spillFile.read(batchSize * laneCount));
+                } catch (IOException ioe) {
+                    throw new ConnectException("Could not read spilled records from " + spillPath, ioe);
+                }
+                if (bufferLimiter.isEnabled()) {
+                    bufferLimiter.add(accumulatedSinkRecords.size(), accumulatedSinkRecords.stream().mapToLong(bufferLimiter::sizeOf).sum());
+                }
+                writeAccumulated(tracker);
+            }
+            saveCheckpoints(tracker);
+            if (spillFile != null && !spillFile.isEmpty()) {
+                // carry on with the rest straight away rather than at the next scheduled commit
+                context.requestCommit();
+            }
+        } catch (RuntimeException re) {
+            // skip the records written before the failure when they are consumed again
+            saveCheckpoints(tracker);
+            skipSavedCheckpoints();
+            // WorkerSinkTask rewinds these partitions to their committed offsets when a commit fails, and consumes
+            // their records again, so what we still hold for them would be written twice
+            dropHeld(offsets.keySet());
+            throw re;
+        }
+    }
+
+    // drop the records held in memory and spilled for the given partitions, which will be consumed again
+    private void dropHeld(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        if (accumulatedSinkRecords != null) {
+            accumulatedSinkRecords.removeIf(r -> partitions.contains(new TopicPartition(r.originalTopic(), r.originalKafkaPartition())));
+            // count again what's left
+            bufferLimiter.reset();
+            if (bufferLimiter.isEnabled()) {
+                bufferLimiter.add(accumulatedSinkRecords.size(), accumulatedSinkRecords.stream().mapToLong(bufferLimiter::sizeOf).sum());
+            }
+        }
+        if (spillFile != null && !spillFile.isEmpty()) {
+            if (partitions.containsAll(spillFile.partitions())) {
+                try {
+                    spillFile.clear();
+                } catch (IOException ioe) {
+                    throw new ConnectException("Could not empty spill file " + spillPath, ioe);
+                }
+            } else {
+                // records can't be taken out of the middle of the file, so they'll be written again
+                LOG.warn("Keeping spilled records in {} for partitions {} which have not been consumed again",
+                        spillPath, spillFile.partitions());
+            }
+        }
+        applyBackpressure();
+    }
+
+    // write the records held in memory, keeping only those which weren't written if there is a failure
+    // tracker, if not null, tracks the records until they are written
+    private void writeAccumulated(OffsetTracker tracker) {
+        LOG.info("flush called with {} documents to {}", accumulatedSinkRecords.size(), config.getString(InterfaceConst.URL));
+        // records in batches which have been written (or reported)
+        Set<SinkRecord> written = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        Consumer<List<DocumentWrite>> onWritten = batch -> {
+            batch.forEach(w -> written.add(w.record));
+            if (tracker != null) {
+                markWritten(batch);
+            }
+        };
+        try {
+            if (lanes == null) {
+                documentWriter.write(accumulatedSinkRecords.stream().map(r -> toWrite(r, tracker)).collect(Collectors.toList()), onWritten);
+            } else {
+                List<List<DocumentWrite>> writesByLane = new ArrayList<>(laneCount);
+                for (int i = 0; i < laneCount; i++) {
+                    writesByLane.add(new ArrayList<>());
+                }
+                for (SinkRecord sinkRecord : accumulatedSinkRecords) {
+                    writesByLane.get(laneFor(sinkRecord)).add(toWrite(sinkRecord, tracker));
+                }
+                List<Future<?>> writes = new ArrayList<>(laneCount);
+                for (int i = 0; i < laneCount; i++) {
+                    List<DocumentWrite> laneBatch = writesByLane.get(i);
+                    if (!laneBatch.isEmpty()) {
+                        writes.add(lanes[i].submit(() -> documentWriter.write(laneBatch, onWritten)));
                     }
                 }
+                awaitLanes(writes);
+            }
 
-                // if we got here, then the batch operation succeeded (ie no network failure and 2xx response)
-                // therefore we can clear out the accumulated sink records
-                // any individual failures reported back from the response to batch write will have been reported
-                // and potentially logged and/or sent to dlq if the user configured these
-                accumulatedSinkRecords = null;
-            } catch (RuntimeException re) {
-                // below we re-wrap the exception as a nicety - it's not required, see explanation below
+            // if we got here, then the batch operation succeeded (ie no network failure and 2xx response)
+            // therefore we can clear out the accumulated sink records
+            // any individual failures reported back from the response to batch write will have been reported
+            // and potentially logged and/or sent to dlq if the user configured these
+            accumulatedSinkRecords = null;
+            bufferLimiter.reset();
+        } catch (RuntimeException re) {
+            // below we re-wrap the exception as a nicety - it's not required, see explanation below
+
+            // WorkerSinkTask#commitOffsets will catch any Throwable and will not advance the offsets, meaning
+            // that everything outstanding in accumulatedSinkRecords (and potentially more if put is called again)
+            // will be attempted to be re-written
+            // batches that were written before the failure are dropped from accumulatedSinkRecords so that they
+            // aren't written again
+            Iterator<SinkRecord> it = accumulatedSinkRecords.iterator();
+            while (it.hasNext()) {
+                SinkRecord sinkRecord = it.next();
+                if (written.contains(sinkRecord)) {
+                    bufferLimiter.release(1, bufferLimiter.sizeOf(sinkRecord));
+                    it.remove();
+                }
+            }
 
-                // WorkerSinkTask#commitOffsets will catch any Throwable and will not advance the offsets, meaning
-                // that everything outstanding in accumulatedSinkRecords (and potentially more if put is called again)
-                // will be attempted to be re-written
+            // logging not needed - WorkerSinkTask#onCommitCompleted will log error including the below message
+            throw new ConnectException("Exception thrown when trying to write documents", re);
+        }
+    }
+
+    private static DocumentWrite toWrite(SinkRecord sinkRecord, OffsetTracker tracker) {
+        DocumentWrite write = new DocumentWrite(sinkRecord);
+        if (tracker != null) {
+            write.offset = tracker.track(sinkRecord);
+        }
+        return write;
+    }
 
-                // logging not needed - WorkerSinkTask#onCommitCompleted will log error including the below message
-                throw new ConnectException("Exception thrown when trying to write documents", re);
+    private static void markWritten(List<DocumentWrite> batch) {
+        for (DocumentWrite write : batch) {
+            write.offset.markDone();
+        }
+    }
+
+    // save how far each partition has been written, so that once they are rewound, the records written so far are
+    // skipped rather than written again
+    // saved once per flush or commit rather than per batch, so checkpointing adds a request per partition per commit
+    private void saveCheckpoints(OffsetTracker tracker) {
+        if (offsetCheckpoint == null || tracker == null) {
+            return;
+        }
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.committableOffsets();
+        if (offsets.isEmpty()) {
+            return;
+        }
+        try {
+            // the checkpoints are saved in cloudant.db, which may not have been written to if records are routed
+            documentWriter.ensureDefaultDatabase();
+        } catch (RuntimeException re) {
+            LOG.warn("Could not create {} to save offset checkpoints in", config.getString(InterfaceConst.DB), re);
+            return;
+        }
+        offsetCheckpoint.save(offsets);
+    }
+
+    // a failed flush or commit rewinds the partitions to their committed offsets, so skip the records consumed again
+    // which are before the checkpoints saved since
+    private void skipSavedCheckpoints() {
+        if (offsetCheckpoint != null) {
+            checkpointed.putAll(offsetCheckpoint.saved());
+        }
+    }
+
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> preCommit(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+        if (!asyncWrites) {
+            // flush everything accumulated so far and commit the offsets of everything consumed so far, except for
+            // the partitions with records still in the spill file
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(super.preCommit(currentOffsets));
+            if (spillFile != null && !spillFile.isEmpty()) {
+                offsets.keySet().removeAll(spillFile.partitions());
+            }
+            applyBackpressure();
+            saveRevisionCacheIfDue();
+            return offsets;
+        }
+        throwIfAsyncFailed();
+        // don't let partial batches wait for more records, but don't wait for them to be written either - their
+        // offsets will be committed on a later commit instead
+        submitRemainders();
+        applyBackpressure();
+        saveRevisionCacheIfDue();
+        saveCheckpoints(offsetTracker);
+        return offsetTracker.committableOffsets(currentOffsets.keySet());
+    }
+
+    @Override
+    public void close(Collection<TopicPartition> partitions) {
+        if (asyncWrites) {
+            // these partitions will be consumed again by whichever task they are assigned to next, so discard
+            // anything we haven't written yet and stop tracking them
+            for (int lane = 0; lane < laneCount; lane++) {
+                Iterator<DocumentWrite> it = laneWrites.get(lane).iterator();
+                while (it.hasNext()) {
+                    DocumentWrite write = it.next();
+                    if (partitions.contains(new TopicPartition(write.record.originalTopic(), write.record.originalKafkaPartition()))) {
+                        bufferLimiter.release(1, write.bufferedBytes);
+                        laneBytes[lane] -= write.bufferedBytes;
+                        it.remove();
+                    }
+                }
+            }
+            offsetTracker.remove(partitions);
+        } else {
+            // whichever task they are assigned to next consumes them from their committed offsets
+            dropHeld(partitions);
+        }
+        if (offsetCheckpoint != null) {
+            offsetCheckpoint.remove(partitions);
+            checkpointed.keySet().removeAll(partitions);
+        }
+    }
+
+    // documents without an ID can go to any lane, so share them out
+    private int laneFor(SinkRecord sinkRecord) {
+        if (laneCount == 1) {
+            return 0;
+        }
+        String id = mapper.documentId(sinkRecord);
+        if (id == null && keyIds && sinkRecord.value() != null) {
+            id = mapper.keyDocumentId(sinkRecord);
+        }
+        int hash = id == null ? nextLaneForNoId.getAndIncrement() : id.hashCode();
+        return Math.floorMod(hash, laneCount);
+    }
+
+    // wait for every lane write to complete, then throw the first failure (if any)
+    private static void awaitLanes(List<Future<?>> writes) {
+        RuntimeException failure = null;
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new ConnectException("Interrupted waiting for documents to be written", ie);
+            } catch (ExecutionException ee) {
+                if (failure == null) {
+                    failure = ee.getCause() instanceof RuntimeException
+                            ? (RuntimeException) ee.getCause()
+                            : new ConnectException(ee.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void submitRemainders() {
+        for (int i = 0; i < laneCount; i++) {
+            if (!laneWrites.get(i).isEmpty()) {
+                submitBatch(i);
             }
         }
     }
 
+    // hand the lane's partial batch to the lane to write
+    private void submitBatch(int lane) {
+        List<DocumentWrite> batch = laneWrites.get(lane);
+        laneWrites.set(lane, new ArrayList<>());
+        laneBytes[lane] = 0;
+        for (DocumentWrite write : batch) {
+            write.offset = offsetTracker.track(write.record);
+        }
+        lanes[lane].execute(() -> {
+            try {
+                // once a write has failed the task is going to fail, so don't write anything more
+                if (asyncFailure.get() == null) {
+                    documentWriter.write(batch, SinkTask::markWritten);
+                }
+            } catch (RuntimeException re) {
+                // the offsets of this batch will never be committed; the task will fail on the next put or commit
+                // and resume from the last committed offsets when restarted
+                asyncFailure.compareAndSet(null, re);
+            } finally {
+                bufferLimiter.release(batch.size(), batch.stream().mapToLong(w -> w.bufferedBytes).sum());
+            }
+        });
+    }
+
+    private void throwIfAsyncFailed() {
+        RuntimeException failure = asyncFailure.get();
+        if (failure != null) {
+            saveCheckpoints(offsetTracker);
+            skipSavedCheckpoints();
+            throw new ConnectException("Exception thrown when trying to write documents", failure);
+        }
+    }
+
     @Override
     public void initialize(SinkTaskContext context) {
         super.initialize(context);
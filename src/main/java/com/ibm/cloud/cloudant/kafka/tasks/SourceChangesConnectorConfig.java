@@ -16,6 +16,8 @@ package com.ibm.cloud.cloudant.kafka.tasks;
 import com.ibm.cloud.cloudant.kafka.utils.InterfaceConst;
 import com.ibm.cloud.cloudant.kafka.utils.MessageKey;
 import com.ibm.cloud.cloudant.kafka.utils.ResourceBundleUtil;
+import com.ibm.cloud.cloudant.kafka.validators.ListRecommender;
+import com.ibm.cloud.cloudant.kafka.validators.PatternValidator;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.config.ConfigDef.Importance;
 import org.apache.kafka.common.config.ConfigDef.Type;
@@ -25,6 +27,11 @@ import java.util.Map;
 
 public class SourceChangesConnectorConfig extends ConnectorConfig {
 
+    protected static final ListRecommender VALID_FEEDS = new ListRecommender(
+            InterfaceConst.FEED_LONGPOLL,
+            InterfaceConst.FEED_CONTINUOUS
+    );
+
     public static final ConfigDef CONFIG_DEF = baseConfigDef();
 
     public static ConfigDef baseConfigDef() {
@@ -43,6 +50,48 @@ public class SourceChangesConnectorConfig extends ConnectorConfig {
                         order++,
                         Width.SHORT,
                         ResourceBundleUtil.get(MessageKey.CLOUDANT_BATCH_SIZE_DISP))
+                // changes feed type
+                .define(InterfaceConst.FEED,
+                        Type.STRING,
+                        InterfaceConst.FEED_LONGPOLL,
+                        VALID_FEEDS,
+                        Importance.MEDIUM,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_FEED_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_FEED_DISP),
+                        VALID_FEEDS)
+                .define(InterfaceConst.FEED_PREFETCH,
+                        Type.INT,
+                        0,
+                        ConfigDef.Range.atLeast(0),
+                        Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_FEED_PREFETCH_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_FEED_PREFETCH_DISP))
+                .define(InterfaceConst.FEED_PREFETCH_MAX_BYTES,
+                        Type.LONG,
+                        64L * 1024 * 1024,
+                        ConfigDef.Range.atLeast(1),
+                        Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_FEED_PREFETCH_MAX_BYTES_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_FEED_PREFETCH_MAX_BYTES_DISP))
+                .define(InterfaceConst.BULK_GET_CONCURRENCY,
+                        Type.INT,
+                        0,
+                        ConfigDef.Range.between(0, 32),
+                        Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BULK_GET_CONCURRENCY_DOC),
+                        KAFKA_GROUP,
+                        order++,
+                        Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_BULK_GET_CONCURRENCY_DISP))
                 // Cloudant last change sequence
                 .define(InterfaceConst.LAST_CHANGE_SEQ,
                         Type.STRING,
@@ -52,7 +101,47 @@ public class SourceChangesConnectorConfig extends ConnectorConfig {
                         DATABASE_GROUP,
                         order++,
                         Width.LONG,
-                        ResourceBundleUtil.get(MessageKey.CLOUDANT_LAST_SEQ_NUM_DISP));
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_LAST_SEQ_NUM_DISP))
+                // more databases
+                .define(InterfaceConst.DBS,
+                        Type.LIST,
+                        "",
+                        Importance.MEDIUM,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DBS_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        Width.LONG,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DBS_DISP))
+                .define(InterfaceConst.DB_PATTERN,
+                        Type.STRING,
+                        NULL_DEFAULT,
+                        new PatternValidator(),
+                        Importance.MEDIUM,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_PATTERN_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        Width.LONG,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_PATTERN_DISP))
+                .define(InterfaceConst.DB_DISCOVERY_INTERVAL_MS,
+                        Type.LONG,
+                        60 * 1000L,
+                        ConfigDef.Range.atLeast(1000),
+                        Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_DISCOVERY_INTERVAL_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DB_DISCOVERY_INTERVAL_DISP))
+                .define(InterfaceConst.DBS_POLL_CONCURRENCY,
+                        Type.INT,
+                        4,
+                        ConfigDef.Range.between(1, 32),
+                        Importance.LOW,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DBS_POLL_CONCURRENCY_DOC),
+                        DATABASE_GROUP,
+                        order++,
+                        Width.SHORT,
+                        ResourceBundleUtil.get(MessageKey.CLOUDANT_DBS_POLL_CONCURRENCY_DISP));
     }
 
     public SourceChangesConnectorConfig(Map<String, String> originals) {
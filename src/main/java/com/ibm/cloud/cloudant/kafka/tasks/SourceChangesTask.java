@@ -1,5 +1,5 @@
 /*
- * Copyright © 2016, 2023 IBM Corp. All rights reserved.
+ * Copyright © 2016, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -18,18 +18,19 @@ import com.ibm.cloud.cloudant.kafka.SourceChangesConnector;
 import com.ibm.cloud.cloudant.kafka.caching.CachedClientManager;
 import com.ibm.cloud.cloudant.kafka.mappers.DocumentToSourceRecord;
 import com.ibm.cloud.cloudant.v1.Cloudant;
-import com.ibm.cloud.cloudant.v1.model.ChangesResult;
 import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
-import com.ibm.cloud.cloudant.v1.model.PostChangesOptions;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.apache.kafka.connect.storage.OffsetStorageReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -42,95 +43,257 @@ public class SourceChangesTask extends org.apache.kafka.connect.source.SourceTas
 
     private String url = null;
 
-    private String db = null;
-
     private List<String> topics = null;
 
-    private String latestSequenceNumber = null;
-
     private int batchSize = 0;
 
-    private BiFunction<String, ChangesResultItem, SourceRecord> documentToSourceRecord;
+    // the changes feed of the database this task reads, if it reads one
+    private DatabaseChanges database;
+
+    // reads the changes feeds of the databases this task reads, if it reads more than one
+    private DatabasesPoller poller;
+
+    // shared by the databases' _bulk_get requests, if they are made
+    private ExecutorService fetchers;
+
+    private static class DatabaseChanges {
+        private final ChangesFeed feed;
+        private final BiFunction<String, ChangesResultItem, SourceRecord> documentToSourceRecord;
+
+        private DatabaseChanges(ChangesFeed feed, BiFunction<String, ChangesResultItem, SourceRecord> documentToSourceRecord) {
+            this.feed = feed;
+            this.documentToSourceRecord = documentToSourceRecord;
+        }
+    }
 
     @Override
     public List<SourceRecord> poll() throws InterruptedException {
-        Cloudant service = CachedClientManager.getInstance(config.originalsStrings());
-
-        LOG.debug("Process lastSeq: {}", latestSequenceNumber);
-
-        // the changes feed for initial processing (not continuous yet)
-        PostChangesOptions postChangesOptions = new PostChangesOptions.Builder()
-                .feed(PostChangesOptions.Feed.LONGPOLL)
-                .timeout(60 * 1000L)
-                .db(db)
-                .includeDocs(true)
-                .since(latestSequenceNumber)
-                .limit(batchSize)
-                .build();
-        ChangesResult cloudantChangesResult = service.postChanges(postChangesOptions).execute().getResult();
-
-        if (cloudantChangesResult != null) {
-            LOG.debug("Got {} changes", cloudantChangesResult.getResults().size());
-            latestSequenceNumber = cloudantChangesResult.getLastSeq();
-
-            // process the results into the array to be returned
-            List<SourceRecord> records = cloudantChangesResult.getResults().stream()
-                    .flatMap(row -> topics.stream().flatMap(topic -> {
-                        SourceRecord record = documentToSourceRecord.apply(topic, row);
-                        if (Optional.ofNullable(row.isDeleted()).orElse(false)) {
-                            // row is deleted, produce a tombstone message from the record as well
-                            SourceRecord tombstone = record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), null, null, record.timestamp());
-                            return Stream.of(record, tombstone);
-                        } else {
-                            return Stream.of(record);
-                        }
-                    })).collect(Collectors.toList());
-
-            LOG.debug("Return {} records with last offset {}", records.size(), latestSequenceNumber);
+        if (poller != null) {
+            List<SourceRecord> records = poller.poll(batchSize, ContinuousChangesFeed.POLL_WAIT_MS);
+            LOG.debug("Return {} records", records.size());
+            return records;
+        }
+        List<ChangesResultItem> changes = database.feed.next(batchSize);
+        if (changes != null) {
+            List<SourceRecord> records = records(database, changes);
+            LOG.debug("Return {} records", records.size());
             return records;
         }
-
         // Only in case of shutdown
         return null;
     }
 
+    // process the results into the array to be returned
+    private List<SourceRecord> records(DatabaseChanges database, List<ChangesResultItem> changes) {
+        return changes.stream()
+                .flatMap(row -> topics.stream().flatMap(topic -> {
+                    SourceRecord record = database.documentToSourceRecord.apply(topic, row);
+                    if (Optional.ofNullable(row.isDeleted()).orElse(false)) {
+                        // row is deleted, produce a tombstone message from the record as well
+                        SourceRecord tombstone = record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), null, null, record.timestamp());
+                        return Stream.of(record, tombstone);
+                    } else {
+                        return Stream.of(record);
+                    }
+                })).collect(Collectors.toList());
+    }
+
     @Override
     public void start(Map<String, String> props) {
         this.config = new SourceChangesConnectorConfig(SourceChangesConnectorConfig.CONFIG_DEF, props);
         url = config.getString(InterfaceConst.URL);
-        db = config.getString(InterfaceConst.DB);
         topics = config.getList(InterfaceConst.TOPIC);
-        latestSequenceNumber = config.getString(InterfaceConst.LAST_CHANGE_SEQ);
         batchSize = config.getInt(InterfaceConst.BATCH_SIZE);
 
+        // the connector divides the databases between the tasks when there are several
+        List<String> dbs = props.containsKey(InterfaceConst.TASK_DBS)
+                ? Arrays.asList(props.get(InterfaceConst.TASK_DBS).split(","))
+                : Collections.singletonList(config.getString(InterfaceConst.DB));
+        // with more than one task for one database, each produces the changes to the documents whose IDs hash to its shard
+        int shards = dbs.size() == 1 ? Integer.parseInt(props.getOrDefault(InterfaceConst.TASK_COUNT, "1")) : 1;
+        int shard = shards > 1 ? Integer.parseInt(props.getOrDefault(InterfaceConst.TASK_INDEX, "0")) : 0;
+
+        Cloudant service = CachedClientManager.getInstance(config.originalsStrings());
+        int bulkGetConcurrency = config.getInt(InterfaceConst.BULK_GET_CONCURRENCY);
+        if (shards > 1 && bulkGetConcurrency == 0) {
+            // only fetch the documents in this task's shard
+            bulkGetConcurrency = 1;
+        }
+        if (dbs.size() == 1) {
+            database = start(service, dbs.get(0), shard, shards, bulkGetConcurrency, false);
+            return;
+        }
+        // the databases share a fixed number of threads, however many there are
+        if (bulkGetConcurrency > 0) {
+            fetchers = BulkGetChangesFeed.newExecutor(String.format("cloudant-bulk-get-%s-", props.get("name")), bulkGetConcurrency);
+        }
+        poller = new DatabasesPoller(String.format("cloudant-changes-%s-", props.get("name")),
+                config.getInt(InterfaceConst.DBS_POLL_CONCURRENCY), batchSize);
+        for (String db : dbs) {
+            DatabaseChanges changes = start(service, db, shard, shards, bulkGetConcurrency, true);
+            poller.add(db, changes.feed, c -> records(changes, c));
+        }
+    }
+
+    private DatabaseChanges start(Cloudant service, String db, int shard, int shards, int bulkGetConcurrency, boolean polled) {
+        String latestSequenceNumber = config.getString(InterfaceConst.LAST_CHANGE_SEQ);
+
         // Note this is a unique identifier for the Cloudant source.
         // At present we consider a DB the source partition and
-        // uniquely identify it by URL and name.
-        Map<String, String> sourcePartition = new HashMap<>(2);
-        sourcePartition.put(InterfaceConst.URL, url);
-        sourcePartition.put(InterfaceConst.DB, db);
-
-        this.documentToSourceRecord = new DocumentToSourceRecord(sourcePartition, SourceChangesTask::offsetValue);
+        // uniquely identify it by URL and name, and by shard when it is divided between tasks.
+        // The first task's share has the same partition however many tasks there are, see storedOffset.
+        Map<String, String> unshardedPartition = new HashMap<>(2);
+        unshardedPartition.put(InterfaceConst.URL, url);
+        unshardedPartition.put(InterfaceConst.DB, db);
+        Map<String, String> sourcePartition = shard == 0 ? unshardedPartition : shardPartition(unshardedPartition, shard, shards);
 
         // if we have a stored `cloudant.since` value, use this in preference to the default or user-supplied option
+        int generation = 0;
         OffsetStorageReader offsetReader = context.offsetStorageReader();
         if (offsetReader != null) {
-            Map<String, Object> offset = offsetReader.offset(sourcePartition);
-            if (offset != null) {
+            StoredOffset stored = storedOffset(offsetReader, unshardedPartition, shard, shards);
+            generation = stored.generation;
+            if (stored.sequence != null) {
                 LOG.info("Retrieving latestSequenceNumber from OffsetStorageReader");
-                latestSequenceNumber = (String) offset.get(InterfaceConst.LAST_CHANGE_SEQ);
+                latestSequenceNumber = stored.sequence;
             }
         }
-        LOG.info("Start with latestSequenceNumber={}", latestSequenceNumber);
+        int taskGeneration = generation;
+        BiFunction<String, ChangesResultItem, SourceRecord> documentToSourceRecord =
+                new DocumentToSourceRecord(sourcePartition, seq -> offsetValue(seq, shards, taskGeneration));
+        LOG.info("Start {} with latestSequenceNumber={}", db, latestSequenceNumber);
+
+        boolean includeDocs = bulkGetConcurrency == 0;
+        int prefetch = config.getInt(InterfaceConst.FEED_PREFETCH);
+        ChangesFeed feed;
+        if (polled) {
+            // requests which don't wait for changes, so that one quiet database doesn't hold up the poller's threads
+            feed = new LongpollChangesFeed(service, db, latestSequenceNumber, includeDocs, 0);
+        } else if (InterfaceConst.FEED_CONTINUOUS.equalsIgnoreCase(config.getString(InterfaceConst.FEED))) {
+            feed = new ContinuousChangesFeed(service, db, latestSequenceNumber, includeDocs, 2 * batchSize);
+        } else if (prefetch > 0) {
+            feed = new PrefetchChangesFeed(service, db, latestSequenceNumber, includeDocs, batchSize, prefetch,
+                    config.getLong(InterfaceConst.FEED_PREFETCH_MAX_BYTES));
+        } else {
+            feed = new LongpollChangesFeed(service, db, latestSequenceNumber, includeDocs);
+        }
+        if (shards > 1) {
+            feed = new ShardChangesFeed(feed, shard, shards);
+        }
+        if (!includeDocs) {
+            feed = new BulkGetChangesFeed(service, db, feed, bulkGetConcurrency, fetchers);
+        }
+        return new DatabaseChanges(feed, documentToSourceRecord);
     }
 
     @Override
     public void stop() {
-        // nothing to do
+        if (poller != null) {
+            poller.close();
+        }
+        if (database != null) {
+            database.feed.close();
+        }
+        if (fetchers != null) {
+            fetchers.shutdownNow();
+        }
+    }
+
+    // where a task carries on from in a database, and the generation of the way it is divided between the tasks
+    static final class StoredOffset {
+        // null to start from cloudant.since
+        final String sequence;
+        final int generation;
+
+        private StoredOffset(String sequence, int generation) {
+            this.sequence = sequence;
+            this.generation = generation;
+        }
     }
 
-    private static Map<String, String> offsetValue(String lastSeqNumber) {
-        return Collections.singletonMap(InterfaceConst.LAST_CHANGE_SEQ, lastSeqNumber);
+    // Where a task carries on from in a database divided between shards tasks.
+    // The first task's offsets are stored in the unsharded partition however many tasks there are, along with the
+    // number of tasks and a generation which goes up each time that number changes, so that only the partitions of
+    // the tasks which read the database last are looked up, and offsets left by the tasks of an earlier generation are
+    // told apart from them. With the same number of tasks, a task carries on from its own offset. When the number has
+    // changed, every task carries on from the earliest offset of the tasks before, so the changes which the others
+    // had got past are produced again rather than skipped. When an offset needed is missing, because a task never
+    // stored one, the task starts from cloudant.since instead, which also produces changes again.
+    static StoredOffset storedOffset(OffsetStorageReader offsetReader, Map<String, String> unshardedPartition, int shard, int shards) {
+        String db = unshardedPartition.get(InterfaceConst.DB);
+        Map<String, Object> first = offsetReader.offset(unshardedPartition);
+        if (sequence(first) == null) {
+            return new StoredOffset(null, 0);
+        }
+        // offsets stored before the database was first divided have neither
+        int count = intValue(first, InterfaceConst.TASK_COUNT, 1);
+        int generation = intValue(first, InterfaceConst.TASK_GENERATION, 0);
+        if (count == shards) {
+            Map<String, Object> own = shard == 0 ? first : offsetReader.offset(shardPartition(unshardedPartition, shard, shards));
+            if (sequence(own) != null && intValue(own, InterfaceConst.TASK_GENERATION, 0) == generation) {
+                return new StoredOffset(sequence(own), generation);
+            }
+            LOG.warn("No offset stored for task {} of {} reading {}, starting from {}", shard, shards, db, InterfaceConst.LAST_CHANGE_SEQ);
+            return new StoredOffset(null, generation);
+        }
+        List<Map<String, String>> partitions = new ArrayList<>(count - 1);
+        for (int index = 1; index < count; index++) {
+            partitions.add(shardPartition(unshardedPartition, index, count));
+        }
+        Map<Map<String, String>, Map<String, Object>> offsets = partitions.isEmpty()
+                ? Collections.emptyMap() : offsetReader.offsets(partitions);
+        String earliest = sequence(first);
+        for (Map<String, String> partition : partitions) {
+            Map<String, Object> offset = offsets == null ? null : offsets.get(partition);
+            String seq = sequence(offset);
+            if (seq == null || intValue(offset, InterfaceConst.TASK_GENERATION, 0) != generation) {
+                LOG.warn("Not every one of the {} task(s) which read {} before stored an offset, starting from {}", count, db,
+                        InterfaceConst.LAST_CHANGE_SEQ);
+                return new StoredOffset(null, generation + 1);
+            }
+            if (sequenceNumber(seq) < sequenceNumber(earliest)) {
+                earliest = seq;
+            }
+        }
+        LOG.info("Carrying on from the earliest offset of the {} task(s) which read {} before, {}", count, db, earliest);
+        return new StoredOffset(earliest, generation + 1);
+    }
+
+    private static Map<String, String> shardPartition(Map<String, String> unshardedPartition, int shard, int shards) {
+        Map<String, String> partition = new HashMap<>(unshardedPartition);
+        partition.put(InterfaceConst.SHARD, shard + "/" + shards);
+        return partition;
+    }
+
+    private static String sequence(Map<String, Object> offset) {
+        return offset == null ? null : (String) offset.get(InterfaceConst.LAST_CHANGE_SEQ);
+    }
+
+    private static int intValue(Map<String, Object> offset, String key, int defaultValue) {
+        Object value = offset.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value.toString());
+    }
+
+    // the number at the start of a sequence, which is higher for later sequences of the same database
+    private static long sequenceNumber(String seq) {
+        int dash = seq.indexOf('-');
+        try {
+            return Long.parseLong(dash < 0 ? seq : seq.substring(0, dash));
+        } catch (NumberFormatException nfe) {
+            return -1;
+        }
+    }
+
+    // a database which has only ever been read by one task has just its sequence
+    private static Map<String, String> offsetValue(String lastSeqNumber, int shards, int generation) {
+        if (shards == 1 && generation == 0) {
+            return Collections.singletonMap(InterfaceConst.LAST_CHANGE_SEQ, lastSeqNumber);
+        }
+        Map<String, String> offset = new HashMap<>(3);
+        offset.put(InterfaceConst.LAST_CHANGE_SEQ, lastSeqNumber);
+        offset.put(InterfaceConst.TASK_COUNT, String.valueOf(shards));
+        offset.put(InterfaceConst.TASK_GENERATION, String.valueOf(generation));
+        return offset;
     }
 
     public String version() {
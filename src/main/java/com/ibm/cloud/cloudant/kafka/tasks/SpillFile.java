@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaAndValue;
+import org.apache.kafka.connect.header.ConnectHeaders;
+import org.apache.kafka.connect.header.Header;
+import org.apache.kafka.connect.json.JsonConverter;
+import org.apache.kafka.connect.json.JsonConverterConfig;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Records a sink task has no room to hold in memory, appended to a file in the order they were received and read back
+// in the same order once writes catch up. Each record is its length followed by its topic, partition, offsets,
+// timestamp, and then its key, value and headers with their schemas in JsonConverter form.
+// The file is emptied whenever everything in it has been read, and deleted when it is closed. It only holds records
+// whose offsets haven't been committed, which Kafka delivers again, so a file left behind by a task which failed is
+// emptied when it is opened.
+class SpillFile implements Closeable {
+
+    // how a key, value or header is written
+    private static final byte NULL = 0;
+    private static final byte JSON = 1;
+    // JsonConverter would turn bytes without a schema into a base64 string, so they are written as they are
+    private static final byte BYTES = 2;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final JsonConverter converter = new JsonConverter();
+
+    // records are appended at the write position and read from the read position
+    private long writePosition = 0;
+    private long readPosition = 0;
+    private long records = 0;
+    // the partitions of the records appended since the file was last emptied
+    private final Set<TopicPartition> partitions = new HashSet<>();
+
+    SpillFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConverterConfig.SCHEMAS_ENABLE_CONFIG, true);
+        // read back the nulls that were written, rather than their fields' defaults
+        config.put(JsonConverterConfig.REPLACE_NULL_WITH_DEFAULT_CONFIG, false);
+        converter.configure(config, false);
+    }
+
+    boolean isEmpty() {
+        return records == 0;
+    }
+
+    // records which haven't been read yet
+    long records() {
+        return records;
+    }
+
+    // bytes which haven't been read yet
+    long bytes() {
+        return writePosition - readPosition;
+    }
+
+    // the partitions of the records appended since the file was last emptied, which include those not read yet
+    Set<TopicPartition> partitions() {
+        return partitions;
+    }
+
+    // throws DataException if a record has a value which can't be converted, in which case none of them are written
+    void append(Collection<SinkRecord> sinkRecords) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(recordBytes);
+        for (SinkRecord sinkRecord : sinkRecords) {
+            recordBytes.reset();
+            write(sinkRecord, recordOut);
+            out.writeInt(recordBytes.size());
+            recordBytes.writeTo(out);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            writePosition += channel.write(buffer, writePosition);
+        }
+        records += sinkRecords.size();
+        for (SinkRecord sinkRecord : sinkRecords) {
+            partitions.add(new TopicPartition(sinkRecord.originalTopic(), sinkRecord.originalKafkaPartition()));
+        }
+    }
+
+    // read up to max of the records which haven't been read yet
+    List<SinkRecord> read(int max) throws IOException {
+        List<SinkRecord> read = new ArrayList<>(Math.min(max, (int) Math.min(records, Integer.MAX_VALUE)));
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        while (read.size() < max && records > 0) {
+            length.clear();
+            readFully(length, readPosition);
+            ByteBuffer record = ByteBuffer.allocate(length.getInt(0));
+            readFully(record, readPosition + Integer.BYTES);
+            read.add(read(new DataInputStream(new ByteArrayInputStream(record.array()))));
+            readPosition += Integer.BYTES + record.capacity();
+            records--;
+        }
+        if (records == 0) {
+            clear();
+        }
+        return read;
+    }
+
+    // drop the records which haven't been read yet, and start again from the beginning of the file
+    void clear() throws IOException {
+        channel.truncate(0);
+        writePosition = 0;
+        readPosition = 0;
+        records = 0;
+        partitions.clear();
+    }
+
+    private void write(SinkRecord record, DataOutput out) throws IOException {
+        out.writeUTF(record.topic());
+        out.writeInt(record.kafkaPartition());
+        out.writeLong(record.kafkaOffset());
+        out.writeBoolean(record.timestamp() != null);
+        if (record.timestamp() != null) {
+            out.writeLong(record.timestamp());
+        }
+        out.writeUTF(record.timestampType().name());
+        writeData(record.topic(), record.keySchema(), record.key(), out);
+        writeData(record.topic(), record.valueSchema(), record.value(), out);
+        out.writeInt(record.headers().size());
+        for (Header header : record.headers()) {
+            out.writeUTF(header.key());
+            writeData(record.topic(), header.schema(), header.value(), out);
+        }
+        out.writeUTF(record.originalTopic());
+        out.writeInt(record.originalKafkaPartition());
+        out.writeLong(record.originalKafkaOffset());
+    }
+
+    private SinkRecord read(DataInput in) throws IOException {
+        String topic = in.readUTF();
+        int partition = in.readInt();
+        long offset = in.readLong();
+        Long timestamp = in.readBoolean() ? in.readLong() : null;
+        TimestampType timestampType = TimestampType.valueOf(in.readUTF());
+        SchemaAndValue key = readData(topic, in);
+        SchemaAndValue value = readData(topic, in);
+        int headerCount = in.readInt();
+        ConnectHeaders headers = new ConnectHeaders();
+        for (int i = 0; i < headerCount; i++) {
+            String headerKey = in.readUTF();
+            SchemaAndValue header = readData(topic, in);
+            headers.add(headerKey, header.value(), header.schema());
+        }
+        String originalTopic = in.readUTF();
+        int originalPartition = in.readInt();
+        long originalOffset = in.readLong();
+        return new SinkRecord(topic, partition, key.schema(), key.value(), value.schema(), value.value(), offset,
+                timestamp, timestampType, headers, originalTopic, originalPartition, originalOffset);
+    }
+
+    private void writeData(String topic, Schema schema, Object value, DataOutput out) throws IOException {
+        byte[] bytes;
+        if (schema == null && value == null) {
+            out.writeByte(NULL);
+            return;
+        } else if (schema == null && value instanceof byte[]) {
+            out.writeByte(BYTES);
+            bytes = (byte[]) value;
+        } else {
+            out.writeByte(JSON);
+            bytes = converter.fromConnectData(topic, schema, value);
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private SchemaAndValue readData(String topic, DataInput in) throws IOException {
+        byte type = in.readByte();
+        if (type == NULL) {
+            return SchemaAndValue.NULL;
+        }
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return type == BYTES ? new SchemaAndValue(null, bytes) : converter.toConnectData(topic, bytes);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Spill file " + path + " is truncated");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        converter.close();
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+}
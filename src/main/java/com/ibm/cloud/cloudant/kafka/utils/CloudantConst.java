@@ -17,6 +17,7 @@ public class CloudantConst {
     public static final String CLOUDANT_DESIGN_PREFIX = "_design/";
     public static final String CLOUDANT_DOC_ID = "_id";
     public static final String CLOUDANT_REV = "_rev";
+    public static final String CLOUDANT_DELETED = "_deleted";
 
     public static final String RESPONSE_ID = "id";
     public static final String RESPONSE_REV = "rev";
@@ -37,6 +37,49 @@ public class InterfaceConst {
 
     public final static String TASKS_MAX = "tasks.max";
     public final static String BATCH_SIZE = "batch.size";
+    public final static String BATCH_MAX_BYTES = "batch.max.bytes";
+
+    public final static String WRITE_ASYNC = "cloudant.write.async";
+    public final static String WRITE_LANES = "cloudant.write.lanes";
+    public final static String BUFFER_MAX_RECORDS = "buffer.max.records";
+    public final static String BUFFER_MAX_BYTES = "buffer.max.bytes";
+    public final static String BUFFER_SPILL_DIR = "buffer.spill.dir";
+    public final static String BUFFER_SPILL_MAX_BYTES = "buffer.spill.max.bytes";
+    public final static String WRITE_RETRIES = "cloudant.write.retries";
+    public final static String WRITE_RETRY_BACKOFF_MS = "cloudant.write.retry.backoff.ms";
+    public final static String WRITE_COALESCE = "cloudant.write.coalesce";
+    public final static String WRITE_MODE = "cloudant.write.mode";
+    public final static String WRITE_STREAMING = "cloudant.write.streaming";
+    public final static String WRITE_PASSTHROUGH = "cloudant.write.passthrough";
+    public final static String CONVERSION_THREADS = "cloudant.conversion.threads";
+    public final static String DB_PARTITIONED = "cloudant.db.partitioned";
+    public final static String DB_SHARDS = "cloudant.db.shards";
+    public final static String DB_ROUTE = "cloudant.db.route";
+    public final static String DB_ROUTE_CONCURRENCY = "cloudant.db.route.concurrency";
+    public final static String ACCOUNTS = "cloudant.accounts";
+    public final static String PARTITION_KEY = "cloudant.partition.key";
+    public final static String PARTITION_BATCHING = "cloudant.partition.batching";
+    public final static String TOMBSTONE_DELETE = "cloudant.tombstone.delete";
+    public final static String REV_CACHE_SIZE = "cloudant.rev.cache.size";
+    public final static String REV_CACHE_DIR = "cloudant.rev.cache.dir";
+    public final static String ID_STRATEGY = "cloudant.id.strategy";
+    public final static String OFFSET_CHECKPOINT = "cloudant.offset.checkpoint";
+    public final static String FEED = "cloudant.feed";
+    public final static String FEED_PREFETCH = "cloudant.feed.prefetch";
+    public final static String FEED_PREFETCH_MAX_BYTES = "cloudant.feed.prefetch.max.bytes";
+    public final static String BULK_GET_CONCURRENCY = "cloudant.bulk.get.concurrency";
+    public final static String DBS = "cloudant.dbs";
+    public final static String DB_PATTERN = "cloudant.db.pattern";
+    public final static String DB_DISCOVERY_INTERVAL_MS = "cloudant.db.discovery.interval.ms";
+    public final static String DBS_POLL_CONCURRENCY = "cloudant.dbs.poll.concurrency";
+    // set by the connector on each task's configuration
+    public final static String TASK_INDEX = "cloudant.task.index";
+    public final static String TASK_COUNT = "cloudant.task.count";
+    public final static String TASK_DBS = "cloudant.task.dbs";
+    // in the source partition of each task's share of a database, when it is divided between tasks
+    public final static String SHARD = "cloudant.shard";
+    // in the offsets of a database divided between tasks, with TASK_COUNT: how many times the number of tasks changed
+    public final static String TASK_GENERATION = "cloudant.task.generation";
 
     public static final int DEFAULT_BATCH_SIZE_SOURCE = 1000;
     public static final int BATCH_SIZE_MIN_SOURCE = 1;
@@ -44,4 +87,22 @@ public class InterfaceConst {
     public static final int DEFAULT_BATCH_SIZE_SINK = 1000;
     public static final int BATCH_SIZE_MIN_SINK = 1;
     public static final int BATCH_SIZE_MAX_SINK = 2000;
+    // comfortably below the Cloudant request size limit of 11MB
+    public static final int DEFAULT_BATCH_MAX_BYTES_SINK = 10 * 1024 * 1024;
+    public static final int BATCH_MAX_BYTES_MIN_SINK = 1;
+
+    public static final int DEFAULT_WRITE_LANES = 1;
+    public static final int WRITE_LANES_MIN = 1;
+    public static final int WRITE_LANES_MAX = 32;
+
+    public static final String WRITE_MODE_INSERT = "insert";
+    public static final String WRITE_MODE_UPSERT = "upsert";
+    public static final String WRITE_MODE_REPLICATE = "replicate";
+
+    public static final String ID_STRATEGY_RECORD = "record";
+    public static final String ID_STRATEGY_OFFSET = "offset";
+    public static final String ID_STRATEGY_KEY = "key";
+
+    public static final String FEED_LONGPOLL = "longpoll";
+    public static final String FEED_CONTINUOUS = "continuous";
 }
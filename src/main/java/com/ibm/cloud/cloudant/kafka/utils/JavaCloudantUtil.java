@@ -16,11 +16,14 @@ package com.ibm.cloud.cloudant.kafka.utils;
 
 import com.ibm.cloud.cloudant.v1.Cloudant;
 import com.ibm.cloud.cloudant.v1.model.*;
+import com.ibm.cloud.sdk.core.service.exception.NotFoundException;
 import com.ibm.cloud.sdk.core.service.exception.ServiceResponseException;
 import com.ibm.cloud.cloudant.kafka.caching.CachedClientManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -50,15 +53,27 @@ public class JavaCloudantUtil {
 
     public static List<DocumentResult> batchWrite(Map<String, String> props,
             List<Document> listOfDocs) throws RuntimeException {
-        Cloudant service = CachedClientManager.getInstance(props);
-
         // attempt to create database
-        createTargetDb(service, props.get(InterfaceConst.DB));
+        createTargetDb(CachedClientManager.getInstance(props), props.get(InterfaceConst.DB));
+
+        return batchWrite(props, props.get(InterfaceConst.DB), listOfDocs, true);
+    }
+
+    // as above, but to the given database, which isn't created first
+    // with newEdits false, the revisions in the documents are written as they are, like replication, and only
+    // documents which failed are in the results
+    public static List<DocumentResult> batchWrite(Map<String, String> props, String db,
+            List<Document> listOfDocs, boolean newEdits) throws RuntimeException {
+        Cloudant service = CachedClientManager.getInstance(props);
 
         // perform bulk insert for array of documents
-        BulkDocs docs = new BulkDocs.Builder().docs(listOfDocs).build();
+        BulkDocs.Builder docsBuilder = new BulkDocs.Builder().docs(listOfDocs);
+        if (!newEdits) {
+            docsBuilder.newEdits(false);
+        }
+        BulkDocs docs = docsBuilder.build();
         PostBulkDocsOptions postBulkDocsOptions = new PostBulkDocsOptions.Builder()
-                .db(props.get(InterfaceConst.DB)).bulkDocs(docs).build();
+                .db(db).bulkDocs(docs).build();
 
         // caller's responsibility to catch RuntimeException on execute() if thrown
         List<DocumentResult> resList =
@@ -66,8 +81,68 @@ public class JavaCloudantUtil {
         return resList;
     }
 
+    // as above, but with a body already serialized as {"docs": [...]}, which is streamed as it is read
+    public static List<DocumentResult> batchWrite(Map<String, String> props, String db,
+            InputStream body) throws RuntimeException {
+        Cloudant service = CachedClientManager.getInstance(props);
+        PostBulkDocsOptions postBulkDocsOptions = new PostBulkDocsOptions.Builder()
+                .db(db).body(body).build();
+        // caller's responsibility to catch RuntimeException on execute() if thrown
+        return service.postBulkDocs(postBulkDocsOptions).execute().getResult();
+    }
+
+    // get the current revision of each of the given documents which exists and is not deleted
+    public static Map<String, String> getRevisions(Map<String, String> props, String db, List<String> ids) throws RuntimeException {
+        Cloudant service = CachedClientManager.getInstance(props);
+        PostAllDocsOptions postAllDocsOptions = new PostAllDocsOptions.Builder()
+                .db(db).keys(ids).build();
+        // caller's responsibility to catch RuntimeException on execute() if thrown
+        List<DocsResultRow> rows = service.postAllDocs(postAllDocsOptions).execute().getResult().getRows();
+        Map<String, String> revisions = new HashMap<>();
+        for (DocsResultRow row : rows) {
+            // rows for documents which don't exist have an error and no value
+            if (row.getValue() != null && !Boolean.TRUE.equals(row.getValue().isDeleted())) {
+                revisions.put(row.getId(), row.getValue().getRev());
+            }
+        }
+        return revisions;
+    }
+
+    // get a _local document (which isn't replicated), or null if it doesn't exist
+    public static Document getLocalDocument(Map<String, String> props, String db, String id) throws RuntimeException {
+        Cloudant service = CachedClientManager.getInstance(props);
+        GetLocalDocumentOptions options = new GetLocalDocumentOptions.Builder()
+                .db(db).docId(id).build();
+        try {
+            return service.getLocalDocument(options).execute().getResult();
+        } catch (NotFoundException nfe) {
+            return null;
+        }
+    }
+
+    // write a _local document, returning its new revision
+    public static String putLocalDocument(Map<String, String> props, String db, String id, Document document) throws RuntimeException {
+        Cloudant service = CachedClientManager.getInstance(props);
+        PutLocalDocumentOptions options = new PutLocalDocumentOptions.Builder()
+                .db(db).docId(id).document(document).build();
+        // caller's responsibility to catch RuntimeException on execute() if thrown
+        return service.putLocalDocument(options).execute().getResult().getRev();
+    }
+
     public static void createTargetDb(Cloudant service, String dbName) {
-        PutDatabaseOptions dbOptions = new PutDatabaseOptions.Builder().db(dbName).build();
+        createTargetDb(service, dbName, false, 0);
+    }
+
+    // shards of 0 means the server's default
+    public static void createTargetDb(Cloudant service, String dbName, boolean partitioned, int shards) {
+        PutDatabaseOptions.Builder dbOptionsBuilder = new PutDatabaseOptions.Builder().db(dbName);
+        if (partitioned) {
+            dbOptionsBuilder.partitioned(true);
+        }
+        if (shards > 0) {
+            dbOptionsBuilder.q(shards);
+        }
+        PutDatabaseOptions dbOptions = dbOptionsBuilder.build();
         try {
             service.putDatabase(dbOptions).execute();
         } catch (ServiceResponseException sre) {
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.utils;
+
+import com.ibm.cloud.cloudant.v1.model.Document;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+
+// Estimates the number of bytes a value takes up when serialized as compact JSON, without serializing it
+public class JsonSizeEstimator {
+
+    private JsonSizeEstimator() {
+        // no instantiation
+    }
+
+    public static long estimate(Document document) {
+        long size = 2;
+        for (String name : document.getPropertyNames()) {
+            size += estimateString(name) + 1 + estimate(document.get(name)) + 1;
+        }
+        return size;
+    }
+
+    // the size of a sink record value as it is written: with cloudant.write.passthrough a String or byte[] value is
+    // raw JSON written as it is, and any other value is serialized
+    public static long estimate(Object value, boolean passthrough) {
+        if (passthrough && value instanceof byte[]) {
+            return ((byte[]) value).length;
+        } else if (passthrough && value instanceof String) {
+            return utf8Length((String) value);
+        }
+        return estimate(value);
+    }
+
+    public static long estimate(Object value) {
+        if (value == null) {
+            return 4;
+        } else if (value instanceof String) {
+            return estimateString((String) value);
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 4 : 5;
+        } else if (value instanceof Number) {
+            return value.toString().length();
+        } else if (value instanceof Map) {
+            long size = 2;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += estimateString(String.valueOf(entry.getKey())) + 1 + estimate(entry.getValue()) + 1;
+            }
+            return size;
+        } else if (value instanceof Struct) {
+            Struct struct = (Struct) value;
+            long size = 2;
+            for (Field field : struct.schema().fields()) {
+                size += estimateString(field.name()) + 1 + estimate(struct.get(field)) + 1;
+            }
+            return size;
+        } else if (value instanceof Collection) {
+            long size = 2;
+            for (Object item : (Collection<?>) value) {
+                size += estimate(item) + 1;
+            }
+            return size;
+        } else if (value instanceof Object[]) {
+            long size = 2;
+            for (Object item : (Object[]) value) {
+                size += estimate(item) + 1;
+            }
+            return size;
+        } else if (value instanceof byte[]) {
+            // serialized as an array of numbers
+            return 2 + 4L * ((byte[]) value).length;
+        } else if (value instanceof ByteBuffer) {
+            return 2 + 4L * ((ByteBuffer) value).remaining();
+        } else if (value instanceof Document) {
+            return estimate((Document) value);
+        } else {
+            return estimateString(value.toString());
+        }
+    }
+
+    private static long utf8Length(String s) {
+        long size = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                size += 1;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                size += 4;
+            } else if (!Character.isLowSurrogate(c)) {
+                size += 3;
+            }
+        }
+        return size;
+    }
+
+    // UTF-8 length plus quotes and escapes
+    private static long estimateString(String s) {
+        long size = 2;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x20) {
+                size += 6;
+            } else if (c == '"' || c == '\\') {
+                size += 2;
+            } else if (c < 0x80) {
+                size += 1;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                // 4 bytes for the whole surrogate pair
+                size += 4;
+            } else if (!Character.isLowSurrogate(c)) {
+                size += 3;
+            }
+        }
+        return size;
+    }
+}
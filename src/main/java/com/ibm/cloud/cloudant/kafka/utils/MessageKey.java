@@ -19,6 +19,10 @@ public class MessageKey {
     public static final String VALIDATION_AUTH_AT_LEAST_ONE_MUST_BE_SET = "ValidationAuthAtLeastOneMustBeSet";
     public static final String VALIDATION_MUST_BE_ONE_OF = "ValidationMustBeOneOf";
     public static final String VALIDATION_NOT_A_URL = "ValidationNotAUrl";
+    public static final String VALIDATION_NOT_A_TEMPLATE = "ValidationNotATemplate";
+    public static final String VALIDATION_NOT_A_PATTERN = "ValidationNotAPattern";
+    public static final String VALIDATION_ACCOUNT_URL_MUST_BE_SET = "ValidationAccountUrlMustBeSet";
+    public static final String VALIDATION_NOT_SUPPORTED_WITH = "ValidationNotSupportedWith";
 
     public static final String CLOUDANT_CONNECTION_URL_DOC = "CloudantConnectUrlDoc";
     public static final String CLOUDANT_CONNECTION_DB_DOC = "CloudantConnectDbDoc";
@@ -37,6 +41,40 @@ public class MessageKey {
     public static final String CLOUDANT_CONNECTION_CLIENT_SECRET_DOC = "CloudantConnectClientSecretDoc";
     public static final String CLOUDANT_BATCH_SIZE_SOURCE_DOC = "CloudantBatchSizeSourceDoc";
     public static final String CLOUDANT_BATCH_SIZE_SINK_DOC = "CloudantBatchSizeSinkDoc";
+    public static final String CLOUDANT_BATCH_MAX_BYTES_SINK_DOC = "CloudantBatchMaxBytesSinkDoc";
+    public static final String CLOUDANT_WRITE_ASYNC_DOC = "CloudantWriteAsyncDoc";
+    public static final String CLOUDANT_WRITE_LANES_DOC = "CloudantWriteLanesDoc";
+    public static final String CLOUDANT_BUFFER_MAX_RECORDS_DOC = "CloudantBufferMaxRecordsDoc";
+    public static final String CLOUDANT_BUFFER_MAX_BYTES_DOC = "CloudantBufferMaxBytesDoc";
+    public static final String CLOUDANT_BUFFER_SPILL_DIR_DOC = "CloudantBufferSpillDirDoc";
+    public static final String CLOUDANT_BUFFER_SPILL_MAX_BYTES_DOC = "CloudantBufferSpillMaxBytesDoc";
+    public static final String CLOUDANT_WRITE_RETRIES_DOC = "CloudantWriteRetriesDoc";
+    public static final String CLOUDANT_WRITE_RETRY_BACKOFF_DOC = "CloudantWriteRetryBackoffDoc";
+    public static final String CLOUDANT_WRITE_COALESCE_DOC = "CloudantWriteCoalesceDoc";
+    public static final String CLOUDANT_WRITE_MODE_DOC = "CloudantWriteModeDoc";
+    public static final String CLOUDANT_WRITE_STREAMING_DOC = "CloudantWriteStreamingDoc";
+    public static final String CLOUDANT_WRITE_PASSTHROUGH_DOC = "CloudantWritePassthroughDoc";
+    public static final String CLOUDANT_CONVERSION_THREADS_DOC = "CloudantConversionThreadsDoc";
+    public static final String CLOUDANT_DB_PARTITIONED_DOC = "CloudantDbPartitionedDoc";
+    public static final String CLOUDANT_DB_SHARDS_DOC = "CloudantDbShardsDoc";
+    public static final String CLOUDANT_DB_ROUTE_DOC = "CloudantDbRouteDoc";
+    public static final String CLOUDANT_DB_ROUTE_CONCURRENCY_DOC = "CloudantDbRouteConcurrencyDoc";
+    public static final String CLOUDANT_ACCOUNTS_DOC = "CloudantAccountsDoc";
+    public static final String CLOUDANT_PARTITION_KEY_DOC = "CloudantPartitionKeyDoc";
+    public static final String CLOUDANT_PARTITION_BATCHING_DOC = "CloudantPartitionBatchingDoc";
+    public static final String CLOUDANT_TOMBSTONE_DELETE_DOC = "CloudantTombstoneDeleteDoc";
+    public static final String CLOUDANT_REV_CACHE_SIZE_DOC = "CloudantRevCacheSizeDoc";
+    public static final String CLOUDANT_REV_CACHE_DIR_DOC = "CloudantRevCacheDirDoc";
+    public static final String CLOUDANT_ID_STRATEGY_DOC = "CloudantIdStrategyDoc";
+    public static final String CLOUDANT_OFFSET_CHECKPOINT_DOC = "CloudantOffsetCheckpointDoc";
+    public static final String CLOUDANT_FEED_DOC = "CloudantFeedDoc";
+    public static final String CLOUDANT_FEED_PREFETCH_DOC = "CloudantFeedPrefetchDoc";
+    public static final String CLOUDANT_FEED_PREFETCH_MAX_BYTES_DOC = "CloudantFeedPrefetchMaxBytesDoc";
+    public static final String CLOUDANT_BULK_GET_CONCURRENCY_DOC = "CloudantBulkGetConcurrencyDoc";
+    public static final String CLOUDANT_DBS_DOC = "CloudantDbsDoc";
+    public static final String CLOUDANT_DB_PATTERN_DOC = "CloudantDbPatternDoc";
+    public static final String CLOUDANT_DB_DISCOVERY_INTERVAL_DOC = "CloudantDbDiscoveryIntervalDoc";
+    public static final String CLOUDANT_DBS_POLL_CONCURRENCY_DOC = "CloudantDbsPollConcurrencyDoc";
 
     public static final String CLOUDANT_CONNECTION_URL_DISP = "CloudantConnectUrlDisp";
     public static final String CLOUDANT_CONNECTION_DB_DISP = "CloudantConnectDbDisp";
@@ -56,6 +94,40 @@ public class MessageKey {
     public static final String CLOUDANT_LAST_SEQ_NUM_DOC = "CloudantLastSeqNumDoc";
     public static final String CLOUDANT_LAST_SEQ_NUM_DISP = "CloudantLastSeqNumDisp";
     public static final String CLOUDANT_BATCH_SIZE_DISP = "CloudantBatchSizeDisp";
+    public static final String CLOUDANT_BATCH_MAX_BYTES_DISP = "CloudantBatchMaxBytesDisp";
+    public static final String CLOUDANT_WRITE_ASYNC_DISP = "CloudantWriteAsyncDisp";
+    public static final String CLOUDANT_WRITE_LANES_DISP = "CloudantWriteLanesDisp";
+    public static final String CLOUDANT_BUFFER_MAX_RECORDS_DISP = "CloudantBufferMaxRecordsDisp";
+    public static final String CLOUDANT_BUFFER_MAX_BYTES_DISP = "CloudantBufferMaxBytesDisp";
+    public static final String CLOUDANT_BUFFER_SPILL_DIR_DISP = "CloudantBufferSpillDirDisp";
+    public static final String CLOUDANT_BUFFER_SPILL_MAX_BYTES_DISP = "CloudantBufferSpillMaxBytesDisp";
+    public static final String CLOUDANT_WRITE_RETRIES_DISP = "CloudantWriteRetriesDisp";
+    public static final String CLOUDANT_WRITE_RETRY_BACKOFF_DISP = "CloudantWriteRetryBackoffDisp";
+    public static final String CLOUDANT_WRITE_COALESCE_DISP = "CloudantWriteCoalesceDisp";
+    public static final String CLOUDANT_WRITE_MODE_DISP = "CloudantWriteModeDisp";
+    public static final String CLOUDANT_WRITE_STREAMING_DISP = "CloudantWriteStreamingDisp";
+    public static final String CLOUDANT_WRITE_PASSTHROUGH_DISP = "CloudantWritePassthroughDisp";
+    public static final String CLOUDANT_CONVERSION_THREADS_DISP = "CloudantConversionThreadsDisp";
+    public static final String CLOUDANT_DB_PARTITIONED_DISP = "CloudantDbPartitionedDisp";
+    public static final String CLOUDANT_DB_SHARDS_DISP = "CloudantDbShardsDisp";
+    public static final String CLOUDANT_DB_ROUTE_DISP = "CloudantDbRouteDisp";
+    public static final String CLOUDANT_DB_ROUTE_CONCURRENCY_DISP = "CloudantDbRouteConcurrencyDisp";
+    public static final String CLOUDANT_ACCOUNTS_DISP = "CloudantAccountsDisp";
+    public static final String CLOUDANT_PARTITION_KEY_DISP = "CloudantPartitionKeyDisp";
+    public static final String CLOUDANT_PARTITION_BATCHING_DISP = "CloudantPartitionBatchingDisp";
+    public static final String CLOUDANT_TOMBSTONE_DELETE_DISP = "CloudantTombstoneDeleteDisp";
+    public static final String CLOUDANT_REV_CACHE_SIZE_DISP = "CloudantRevCacheSizeDisp";
+    public static final String CLOUDANT_REV_CACHE_DIR_DISP = "CloudantRevCacheDirDisp";
+    public static final String CLOUDANT_ID_STRATEGY_DISP = "CloudantIdStrategyDisp";
+    public static final String CLOUDANT_OFFSET_CHECKPOINT_DISP = "CloudantOffsetCheckpointDisp";
+    public static final String CLOUDANT_FEED_DISP = "CloudantFeedDisp";
+    public static final String CLOUDANT_FEED_PREFETCH_DISP = "CloudantFeedPrefetchDisp";
+    public static final String CLOUDANT_FEED_PREFETCH_MAX_BYTES_DISP = "CloudantFeedPrefetchMaxBytesDisp";
+    public static final String CLOUDANT_BULK_GET_CONCURRENCY_DISP = "CloudantBulkGetConcurrencyDisp";
+    public static final String CLOUDANT_DBS_DISP = "CloudantDbsDisp";
+    public static final String CLOUDANT_DB_PATTERN_DISP = "CloudantDbPatternDisp";
+    public static final String CLOUDANT_DB_DISCOVERY_INTERVAL_DISP = "CloudantDbDiscoveryIntervalDisp";
+    public static final String CLOUDANT_DBS_POLL_CONCURRENCY_DISP = "CloudantDbsPollConcurrencyDisp";
 
     public static final String KAFKA_TOPIC_LIST_DOC = "KafkaTopicListDoc";
     public static final String KAFKA_TOPIC_LIST_DISP = "KafkaTopicListDisp";
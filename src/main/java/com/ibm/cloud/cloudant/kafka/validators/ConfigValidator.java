@@ -14,6 +14,7 @@
 
 package com.ibm.cloud.cloudant.kafka.validators;
 
+import com.ibm.cloud.cloudant.kafka.tasks.SinkConnectorConfig;
 import com.ibm.cloud.cloudant.kafka.utils.InterfaceConst;
 import com.ibm.cloud.cloudant.kafka.utils.MessageKey;
 import com.ibm.cloud.cloudant.kafka.utils.ResourceBundleUtil;
@@ -21,6 +22,7 @@ import com.ibm.cloud.cloudant.security.CouchDbSessionAuthenticator;
 import com.ibm.cloud.sdk.core.security.Authenticator;
 import org.apache.kafka.common.config.Config;
 import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.common.config.ConfigValue;
 import org.apache.kafka.common.config.types.Password;
 
@@ -32,11 +34,13 @@ import java.util.stream.Collectors;
 // custom validations, for complex validation rules across multiple fields
 public class ConfigValidator {
 
+    private Map<String, String> props;
     private Map<String, ConfigValue> values;
     private List<ConfigValue> validations;
 
     public ConfigValidator(Map<String, String> props, ConfigDef config) {
 
+        this.props = props;
         validations = config.validate(props);
         values = validations.stream().collect(Collectors.toMap(ConfigValue::name, Function.identity()));
     }
@@ -48,9 +52,36 @@ public class ConfigValidator {
         validateBearerTokenAuth();
         validateContainerAuth();
         validateVpcAuth();
+        validateAccounts();
+        validateSpill();
         return new Config(validations);
     }
 
+    // sink only
+    // async lanes take their records straight away, so there's nothing to spill
+    private void validateSpill() {
+        if (values.containsKey(InterfaceConst.BUFFER_SPILL_DIR)
+                && !nullOrEmpty(values.get(InterfaceConst.BUFFER_SPILL_DIR).value())
+                && Boolean.TRUE.equals(values.get(InterfaceConst.WRITE_ASYNC).value())) {
+            String message = String.format(ResourceBundleUtil.get(MessageKey.VALIDATION_NOT_SUPPORTED_WITH),
+                    InterfaceConst.BUFFER_SPILL_DIR,
+                    InterfaceConst.WRITE_ASYNC,
+                    true);
+            addErrorMessage(InterfaceConst.BUFFER_SPILL_DIR, message);
+        }
+    }
+
+    // sink only
+    private void validateAccounts() {
+        if (values.containsKey(InterfaceConst.ACCOUNTS)) {
+            try {
+                SinkConnectorConfig.accountsProperties(props);
+            } catch (ConfigException ce) {
+                addErrorMessage(InterfaceConst.ACCOUNTS, ce.getMessage());
+            }
+        }
+    }
+
     private void validateBasicAuth() {
         if (Authenticator.AUTHTYPE_BASIC.equalsIgnoreCase((String) values.get(InterfaceConst.AUTH_TYPE).value())) {
             if (nullOrEmpty(values.get(InterfaceConst.USERNAME).value()) || nullOrEmpty(values.get(InterfaceConst.PASSWORD).value())) {
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.validators;
+
+import com.ibm.cloud.cloudant.kafka.utils.MessageKey;
+import com.ibm.cloud.cloudant.kafka.utils.ResourceBundleUtil;
+import org.apache.kafka.common.config.ConfigDef.Validator;
+import org.apache.kafka.common.config.ConfigException;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class PatternValidator implements Validator {
+
+    @Override
+    public void ensureValid(String name, Object value) {
+        // can be null if it's optional
+        if (value == null) {
+            return;
+        }
+        try {
+            Pattern.compile((String) value);
+        } catch (PatternSyntaxException | ClassCastException e) {
+            throw new ConfigException(name, value, String.format(ResourceBundleUtil.get(MessageKey.VALIDATION_NOT_A_PATTERN), e.getMessage()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<regular expression>";
+    }
+}
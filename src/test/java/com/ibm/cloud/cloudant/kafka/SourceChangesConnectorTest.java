@@ -18,8 +18,11 @@ import com.ibm.cloud.cloudant.kafka.caching.ClientManagerUtils;
 import com.ibm.cloud.cloudant.kafka.utils.InterfaceConst;
 import com.ibm.cloud.cloudant.kafka.utils.ConnectorUtils;
 import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.sdk.core.http.Response;
+import com.ibm.cloud.sdk.core.http.ServiceCall;
 import junit.framework.TestCase;
 import org.apache.kafka.connect.connector.ConnectorContext;
+import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.powermock.api.easymock.PowerMock;
 import org.powermock.reflect.Whitebox;
@@ -27,6 +30,10 @@ import org.powermock.reflect.Whitebox;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.easymock.EasyMock.expect;
 
 /**
  * @author holger
@@ -108,4 +115,102 @@ public class SourceChangesConnectorTest extends TestCase {
 
         PowerMock.verifyAll();
     }
+
+    /**
+     * Test method for
+     * {@link SourceChangesConnector#taskConfigs(int)} with more than one task.
+     */
+    public void testTaskConfigsShards() {
+        PowerMock.replayAll();
+        connector.start(sourceProperties);
+
+        List<Map<String, String>> taskConfigs = connector.taskConfigs(3);
+
+        Assert.assertEquals(3, taskConfigs.size());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(String.valueOf(i), taskConfigs.get(i).get(InterfaceConst.TASK_INDEX));
+            Assert.assertEquals("3", taskConfigs.get(i).get(InterfaceConst.TASK_COUNT));
+            Assert.assertEquals(sourceProperties.get(InterfaceConst.DB), taskConfigs.get(i).get(InterfaceConst.DB));
+        }
+
+        PowerMock.verifyAll();
+    }
+
+    /**
+     * Test method for
+     * {@link SourceChangesConnector#taskConfigs(int)} with more than one database.
+     */
+    public void testTaskConfigsDatabases() {
+        sourceProperties.put(InterfaceConst.URL, "http://localhost:5984");
+        sourceProperties.put(InterfaceConst.DB, "b");
+        sourceProperties.put(InterfaceConst.DBS, "a,c,d,e");
+        PowerMock.replayAll();
+        connector.start(sourceProperties);
+
+        // no more tasks than databases
+        Assert.assertEquals(5, connector.taskConfigs(8).size());
+
+        List<Map<String, String>> taskConfigs = connector.taskConfigs(2);
+        Assert.assertEquals(2, taskConfigs.size());
+        Assert.assertEquals("a,c,e", taskConfigs.get(0).get(InterfaceConst.TASK_DBS));
+        Assert.assertEquals("b,d", taskConfigs.get(1).get(InterfaceConst.TASK_DBS));
+        Assert.assertNull(taskConfigs.get(0).get(InterfaceConst.TASK_COUNT));
+
+        PowerMock.verifyAll();
+    }
+
+    /**
+     * Test method for
+     * {@link SourceChangesConnector#start(java.util.Map)} with a database pattern.
+     */
+    public void testDatabasesDiscovered() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        ConnectorContext mockContext = EasyMock.createMock(ConnectorContext.class);
+        // can't be listed at first, so the configured database is read until they can be
+        expect(mockCloudant.getAllDbs()).andThrow(new RuntimeException("unavailable")).times(2);
+        expect(mockCloudant.getAllDbs())
+                .andReturn(serviceCall(List.of("other", "tenant-1", "tenant-2")))
+                .anyTimes();
+        CountDownLatch reconfigured = new CountDownLatch(1);
+        mockContext.requestTaskReconfiguration();
+        EasyMock.expectLastCall().andAnswer(() -> {
+            reconfigured.countDown();
+            return null;
+        });
+        ClientManagerUtils.addClientToCache(sourceProperties.get("name"), mockCloudant);
+        sourceProperties.put(InterfaceConst.URL, "http://localhost:5984");
+        sourceProperties.put(InterfaceConst.DB, "tenant-0");
+        sourceProperties.put(InterfaceConst.DB_PATTERN, "tenant-.*");
+        sourceProperties.put(InterfaceConst.DB_DISCOVERY_INTERVAL_MS, "1000");
+        connector = new SourceChangesConnector();
+        connector.initialize(mockContext);
+        EasyMock.replay(mockCloudant, mockContext);
+
+        connector.start(sourceProperties);
+        try {
+            Assert.assertEquals("tenant-0", connector.taskConfigs(1).get(0).get(InterfaceConst.DB));
+            Assert.assertNull(connector.taskConfigs(1).get(0).get(InterfaceConst.TASK_DBS));
+            Assert.assertTrue(reconfigured.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals("tenant-0,tenant-1,tenant-2", tasksDbs(connector.taskConfigs(1)));
+            EasyMock.verify(mockCloudant, mockContext);
+        } finally {
+            connector.stop();
+        }
+    }
+
+    // mocked here rather than with PowerMock, which would leave them for replayAll in the other tests
+    @SuppressWarnings("unchecked")
+    private static <T> ServiceCall<T> serviceCall(T result) {
+        Response<T> response = EasyMock.createMock(Response.class);
+        expect(response.getResult()).andReturn(result).anyTimes();
+        ServiceCall<T> call = EasyMock.createMock(ServiceCall.class);
+        expect(call.execute()).andReturn(response).anyTimes();
+        EasyMock.replay(response, call);
+        return call;
+    }
+
+    private static String tasksDbs(List<Map<String, String>> taskConfigs) {
+        Assert.assertEquals(1, taskConfigs.size());
+        return taskConfigs.get(0).get(InterfaceConst.TASK_DBS);
+    }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.mappers;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class SinkRecordTemplateTest {
+
+    @Test
+    public void testNoTemplateUsesDefault() {
+        SinkRecordTemplate router = new SinkRecordTemplate(null, "default");
+        Assert.assertEquals("default", router.apply(new SinkRecord("orders", 0, null, null, null, Map.of(), 0)));
+    }
+
+    @Test
+    public void testPlaceholders() {
+        SinkRecordTemplate router = new SinkRecordTemplate("${topic}-${header:region}-${field:tenant}", "default");
+        Schema schema = SchemaBuilder.struct().field("tenant", Schema.INT32_SCHEMA).build();
+
+        SinkRecord map = new SinkRecord("orders", 0, null, null, null, Map.of("tenant", "acme"), 0);
+        map.headers().addString("region", "eu");
+        SinkRecord struct = new SinkRecord("orders", 0, null, null, schema, new Struct(schema).put("tenant", 7), 1);
+        struct.headers().addString("region", "us");
+        SinkRecord json = new SinkRecord("orders", 0, null, null, null, "{\"tenant\": \"json\"}", 2);
+        json.headers().addString("region", "ap");
+
+        Assert.assertEquals("orders-eu-acme", router.apply(map));
+        Assert.assertEquals("orders-us-7", router.apply(struct));
+        Assert.assertEquals("orders-ap-json", router.apply(json));
+    }
+
+    @Test
+    public void testMissingValueUsesDefault() {
+        SinkRecordTemplate router = new SinkRecordTemplate("${topic}-${header:region}", "default");
+        Assert.assertEquals("default", router.apply(new SinkRecord("orders", 0, null, null, null, Map.of(), 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPlaceholder() {
+        new SinkRecordTemplate("${partition}", "default");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnterminatedPlaceholder() {
+        new SinkRecordTemplate("orders-${topic", "default");
+    }
+}
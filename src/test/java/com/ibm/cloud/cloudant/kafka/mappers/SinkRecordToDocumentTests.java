@@ -298,4 +298,57 @@ public class SinkRecordToDocumentTests {
         } catch (IllegalArgumentException iae) {
         }
     }
+
+    @Test
+    public void testTombstoneDocumentIdFromKey() {
+        // given...
+        SinkRecord stringKey = new SinkRecord("test", 13, Schema.STRING_SCHEMA, "0001", null, null, 0);
+        Struct structKey = new Struct(DocumentToSourceRecord.RECORD_KEY_SCHEMA)
+                .put("_id", "0002")
+                .put("cloudant.url", "http://foo")
+                .put("cloudant.db", "bar");
+        SinkRecord sourceKey = new SinkRecord("test", 13, DocumentToSourceRecord.RECORD_KEY_SCHEMA, structKey, null, null, 0);
+        SinkRecord numericKey = new SinkRecord("test", 13, Schema.INT64_SCHEMA, 3L, null, null, 0);
+        SinkRecord noKey = new SinkRecord("test", 13, null, null, null, null, 0);
+        // then...
+        assertEquals("0001", mapper.documentId(stringKey));
+        assertEquals("0002", mapper.documentId(sourceKey));
+        assertEquals("3", mapper.documentId(numericKey));
+        assertNull(mapper.documentId(noKey));
+    }
+
+    @Test
+    public void testConvertStructsSharingSchema() {
+        // given...
+        Schema inner = SchemaBuilder.struct().field("n", Schema.INT32_SCHEMA).optional().build();
+        Schema s = SchemaBuilder.struct()
+                .field("_id", Schema.STRING_SCHEMA)
+                .field("inner", inner)
+                .field("list", SchemaBuilder.array(inner).build())
+                .field("map", SchemaBuilder.map(Schema.STRING_SCHEMA, inner).build())
+                .build();
+        Map<String, Struct> map = new HashMap<>();
+        map.put("k", new Struct(inner).put("n", 3));
+        Struct first = new Struct(s)
+                .put("_id", "first")
+                .put("inner", new Struct(inner).put("n", 1))
+                .put("list", List.of(new Struct(inner).put("n", 2)))
+                .put("map", map);
+        // optional struct left null
+        Struct second = new Struct(s)
+                .put("_id", "second")
+                .put("list", List.of())
+                .put("map", new HashMap<>());
+        // when...
+        Document convertedFirst = mapper.apply(new SinkRecord("test", 13, null, null, s, first, 0));
+        Document convertedSecond = mapper.apply(new SinkRecord("test", 13, null, null, s, second, 1));
+        // then...
+        assertEquals("first", convertedFirst.get("_id"));
+        assertEquals(Map.of("n", 1), convertedFirst.get("inner"));
+        assertEquals(List.of(Map.of("n", 2)), convertedFirst.get("list"));
+        assertEquals(Map.of("k", Map.of("n", 3)), convertedFirst.get("map"));
+        assertEquals("second", convertedSecond.get("_id"));
+        assertNull(convertedSecond.get("inner"));
+        assertEquals(List.of(), convertedSecond.get("list"));
+    }
 }
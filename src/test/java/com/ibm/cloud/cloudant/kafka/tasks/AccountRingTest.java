@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class AccountRingTest {
+
+    private static final int IDS = 10000;
+
+    @Test
+    public void testIdsSpreadAcrossAccounts() {
+        AccountRing ring = new AccountRing(List.of("http://a", "http://b", "http://c"));
+        int[] counts = new int[3];
+        for (int i = 0; i < IDS; i++) {
+            counts[ring.accountFor("doc" + i)]++;
+        }
+        for (int count : counts) {
+            // within a fifth of an even share
+            Assert.assertTrue(count > IDS / 3 * 0.8 && count < IDS / 3 * 1.2);
+        }
+        Assert.assertEquals(0, ring.accountFor(null));
+    }
+
+    @Test
+    public void testAddingAccountOnlyMovesIdsToIt() {
+        AccountRing before = new AccountRing(List.of("http://a", "http://b"));
+        // in a different order, which mustn't matter
+        AccountRing after = new AccountRing(List.of("http://b", "http://c", "http://a"));
+        List<String> urlsBefore = List.of("http://a", "http://b");
+        List<String> urlsAfter = List.of("http://b", "http://c", "http://a");
+        int moved = 0;
+        for (int i = 0; i < IDS; i++) {
+            String urlBefore = urlsBefore.get(before.accountFor("doc" + i));
+            String urlAfter = urlsAfter.get(after.accountFor("doc" + i));
+            if (!urlBefore.equals(urlAfter)) {
+                Assert.assertEquals("http://c", urlAfter);
+                moved++;
+            }
+        }
+        Assert.assertTrue(moved > IDS / 3 * 0.8 && moved < IDS / 3 * 1.2);
+    }
+}
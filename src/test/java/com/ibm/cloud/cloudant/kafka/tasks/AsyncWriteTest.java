@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.utils.ServiceCallUtils;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import com.ibm.cloud.cloudant.v1.model.PostBulkDocsOptions;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArgument;
+import static org.easymock.EasyMock.verify;
+
+// tests of asynchronous writes and write lanes against a mock client
+@SuppressWarnings("unchecked")
+public class AsyncWriteTest extends MockSinkTest {
+
+    // with asynchronous writes, full batches are written from put and only written offsets are committed
+    @Test
+    public void testAsyncWritesCommitWrittenOffsets() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("batch.size", "2");
+        extraConfig.put("cloudant.write.async", "true");
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(1)));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0), record("b", 1), record("c", 2)));
+        // full batch is written, partial batch is written by flush
+        sinkTask.flush(Collections.emptyMap());
+        Map<TopicPartition, OffsetAndMetadata> offsets = sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(3)));
+        sinkTask.stop();
+
+        Assert.assertEquals(2, bulkDocsCapture.getValues().size());
+        Assert.assertEquals(2, bulkDocsCapture.getValues().get(0).bulkDocs().docs().size());
+        Assert.assertEquals(1, bulkDocsCapture.getValues().get(1).bulkDocs().docs().size());
+        Assert.assertEquals(3, offsets.get(tp).offset());
+    }
+
+    // a lane's failure is thrown from the next flush, commit or put, and nothing more is written
+    @Test
+    public void testAsyncFailureThrownFromFlushAndPreCommit() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("batch.size", "2");
+        extraConfig.put("cloudant.write.async", "true");
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture))).andThrow(new RuntimeException("eek!")).once();
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0), record("b", 1), record("c", 2)));
+        try {
+            sinkTask.flush(Collections.emptyMap());
+            Assert.fail("Expected ConnectException from flush");
+        } catch (ConnectException ce) {
+            Assert.assertEquals("eek!", ce.getCause().getMessage());
+        }
+        try {
+            sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(3)));
+            Assert.fail("Expected ConnectException from preCommit");
+        } catch (ConnectException ce) {
+            // expected
+        }
+        try {
+            sinkTask.put(List.of(record("d", 3)));
+            Assert.fail("Expected ConnectException from put");
+        } catch (ConnectException ce) {
+            // expected
+        }
+        sinkTask.stop();
+
+        // the partial batch isn't written after the failure
+        verify(mockCloudant);
+    }
+
+    // closing a partition discards its records which haven't been handed to a lane, and its offsets aren't committed
+    // even when a batch with its records finishes writing afterwards
+    @Test
+    public void testCloseWithWritesInFlight() throws InterruptedException {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("batch.size", "2");
+        extraConfig.put("cloudant.write.async", "true");
+        TopicPartition tp1 = new TopicPartition("test", 1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture))).andAnswer(() -> {
+            writing.countDown();
+            release.await();
+            return ServiceCallUtils.makeServiceCallWithResult(okResults(2));
+        }).once();
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record(0, "a", 0), record(1, "b", 0)));
+        Assert.assertTrue(writing.await(10, TimeUnit.SECONDS));
+        sinkTask.put(List.of(record(1, "c", 1)));
+        sinkTask.close(List.of(tp1));
+        release.countDown();
+        sinkTask.flush(Collections.emptyMap());
+        Map<TopicPartition, OffsetAndMetadata> offsets = sinkTask.preCommit(
+                Map.of(tp, new OffsetAndMetadata(1), tp1, new OffsetAndMetadata(2)));
+        sinkTask.stop();
+
+        verify(mockCloudant);
+        Assert.assertEquals(List.of(List.of("a", "b")), requestedIds());
+        Assert.assertEquals(Map.of(tp, new OffsetAndMetadata(1)), offsets);
+    }
+
+    // lane batches are handed off before they go over batch.max.bytes, without waiting for batch.size records
+    @Test
+    public void testAsyncBatchesLimitedByBytes() throws InterruptedException {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("batch.max.bytes", "100");
+        extraConfig.put("cloudant.write.async", "true");
+        CountDownLatch written = new CountDownLatch(2);
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture))).andAnswer(() -> {
+            written.countDown();
+            return ServiceCallUtils.makeServiceCallWithResult(okResults(2));
+        }).times(3);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        // each document is about 45 bytes, so two fit in a batch
+        List<SinkRecord> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            SinkRecord record = record("doc" + i, i);
+            ((Map<String, Object>) record.value()).put("data", "x".repeat(20));
+            records.add(record);
+        }
+        sinkTask.put(records);
+        // the first two batches are written without a flush
+        Assert.assertTrue(written.await(10, TimeUnit.SECONDS));
+        sinkTask.flush(Collections.emptyMap());
+        sinkTask.stop();
+
+        verify(mockCloudant);
+        Assert.assertEquals(List.of(List.of("doc0", "doc1"), List.of("doc2", "doc3"), List.of("doc4")), requestedIds());
+    }
+
+    // with several lanes, each lane gets its own requests and every update to a document stays in order in one lane
+    @Test
+    public void testLanesKeepDocumentUpdatesTogether() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.lanes", "2");
+        // "a" and "b" hash to different lanes
+        Assert.assertNotEquals(Math.floorMod("a".hashCode(), 2), Math.floorMod("b".hashCode(), 2));
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2))).times(2);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        SinkRecord a1 = record("a", 0);
+        ((Map<String, Object>) a1.value()).put("version", 1);
+        SinkRecord a2 = record("a", 2);
+        ((Map<String, Object>) a2.value()).put("version", 2);
+        sinkTask.put(List.of(a1, record("b", 1), a2, record("b", 3)));
+        sinkTask.flush(Collections.emptyMap());
+        sinkTask.stop();
+
+        Assert.assertEquals(2, bulkDocsCapture.getValues().size());
+        for (PostBulkDocsOptions options : bulkDocsCapture.getValues()) {
+            List<Document> docs = options.bulkDocs().docs();
+            Assert.assertEquals(2, docs.size());
+            Assert.assertEquals(docs.get(0).get("_id"), docs.get(1).get("_id"));
+            if ("a".equals(docs.get(0).get("_id"))) {
+                Assert.assertEquals(1, docs.get(0).get("version"));
+                Assert.assertEquals(2, docs.get(1).get("version"));
+            }
+        }
+    }
+
+    // when one lane fails, the other lanes still finish their writes, and only the failed lane's records are written
+    // again
+    @Test
+    public void testLaneFailureKeepsOnlyUnwrittenRecords() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.lanes", "2");
+        AtomicBoolean failed = new AtomicBoolean();
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture))).andAnswer(() -> {
+            PostBulkDocsOptions request = getCurrentArgument(0);
+            if ("a".equals(request.bulkDocs().docs().get(0).get("_id")) && failed.compareAndSet(false, true)) {
+                throw new RuntimeException("eek!");
+            }
+            return ServiceCallUtils.makeServiceCallWithResult(okResults(request.bulkDocs().docs().size()));
+        }).times(3);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0), record("b", 1), record("a", 2)));
+        try {
+            sinkTask.flush(Collections.emptyMap());
+            Assert.fail("Expected ConnectException");
+        } catch (ConnectException ce) {
+            // expected
+        }
+        Assert.assertTrue(requestedIds().contains(List.of("b")));
+        sinkTask.flush(Collections.emptyMap());
+        sinkTask.stop();
+
+        verify(mockCloudant);
+        Assert.assertEquals(List.of("a", "a"), requestedIds().get(2));
+    }
+}
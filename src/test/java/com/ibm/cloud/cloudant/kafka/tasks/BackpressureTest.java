@@ -0,0 +1,232 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.utils.ServiceCallUtils;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.verify;
+
+// tests of the buffer limits, pausing consumption and spilling records against a mock client
+public class BackpressureTest extends MockSinkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // consumption is paused when the buffer fills up, and resumed once it has been written
+    @Test
+    public void testPauseAndResumeWhenBufferFull() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("buffer.max.records", "2");
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)));
+        expect(mockContext.assignment()).andReturn(Collections.singleton(tp)).times(2);
+        mockContext.pause(tp);
+        expectLastCall();
+        mockContext.requestCommit();
+        expectLastCall();
+        mockContext.resume(tp);
+        expectLastCall();
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0)));
+        sinkTask.put(List.of(record("b", 1)));
+        Map<TopicPartition, OffsetAndMetadata> offsets = sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(2)));
+
+        verify(mockContext);
+        Assert.assertEquals(1, bulkDocsCapture.getValues().size());
+        Assert.assertEquals(2, offsets.get(tp).offset());
+    }
+
+    // a failed write rewinds the partitions, so the records held for them are dropped and consumption is resumed to
+    // consume them again; once they fill the buffer again, consumption is paused, including for partitions assigned
+    // in the meantime, until they have been written
+    @Test
+    public void testResumeAfterFailedWrite() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("buffer.max.records", "2");
+        TopicPartition tp1 = new TopicPartition("test", 1);
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andThrow(new RuntimeException("throttled"))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)));
+        expect(mockContext.assignment()).andReturn(Collections.singleton(tp)).times(3);
+        expect(mockContext.assignment()).andReturn(Set.of(tp, tp1)).once();
+        mockContext.pause(tp);
+        expectLastCall().times(2);
+        mockContext.pause(tp1);
+        expectLastCall();
+        mockContext.requestCommit();
+        expectLastCall().times(2);
+        mockContext.resume(tp);
+        expectLastCall();
+        AtomicBoolean resumed = new AtomicBoolean();
+        mockContext.resume(anyObject(), anyObject());
+        expectLastCall().andAnswer(() -> {
+            Assert.assertEquals(Set.of(tp, tp1), Set.of(getCurrentArguments()));
+            resumed.set(true);
+            return null;
+        });
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0), record("b", 1)));
+        try {
+            sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(0)));
+            Assert.fail("Expected ConnectException");
+        } catch (ConnectException ce) {
+            // expected
+        }
+        // consumed again from the committed offset
+        sinkTask.put(List.of(record("a", 0), record("b", 1)));
+        sinkTask.open(List.of(tp1));
+        sinkTask.put(Collections.emptyList());
+        Assert.assertFalse(resumed.get());
+        Map<TopicPartition, OffsetAndMetadata> offsets = sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(2)));
+
+        verify(mockContext);
+        Assert.assertTrue(resumed.get());
+        Assert.assertEquals(2, offsets.get(tp).offset());
+        Assert.assertEquals(List.of(List.of("a", "b"), List.of("a", "b")), requestedIds());
+    }
+
+    // with a spill directory, records over the buffer limit are spilled instead of pausing consumption, and are written
+    // in order after the records in memory, even when a write fails
+    @Test
+    public void testSpillsRecordsOverBufferLimit() throws IOException {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("buffer.max.records", "2");
+        extraConfig.put("buffer.spill.dir", folder.getRoot().getPath());
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andThrow(new RuntimeException("throttled"))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(3)));
+        mockContext.requestCommit();
+        expectLastCall();
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0), record("b", 1)));
+        sinkTask.put(List.of(record("c", 2), record("d", 3)));
+        try {
+            sinkTask.flush(Collections.emptyMap());
+            Assert.fail("Expected ConnectException");
+        } catch (ConnectException ce) {
+            // expected
+        }
+        // still spilled, as there are spilled records to write first
+        sinkTask.put(List.of(record("e", 4)));
+        Assert.assertEquals(1, Files.list(folder.getRoot().toPath()).count());
+        sinkTask.flush(Collections.emptyMap());
+        sinkTask.stop();
+
+        verify(mockCloudant, mockContext);
+        List<List<Object>> requests = bulkDocsCapture.getValues().stream()
+                .map(request -> request.bulkDocs().docs().stream().map(d -> d.get("_id")).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+        Assert.assertEquals(List.of(List.of("a", "b"), List.of("a", "b"), List.of("c", "d", "e")), requests);
+        Assert.assertEquals(0, Files.list(folder.getRoot().toPath()).count());
+    }
+
+    // each commit writes a bounded number of chunks of the spill file, asking for another commit to write the rest,
+    // and the offsets of the spilled partitions are only committed once the file has been written
+    @Test
+    public void testSpilledRecordsWrittenOverSeveralCommits() throws IOException {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("batch.size", "1");
+        extraConfig.put("buffer.max.records", "1");
+        extraConfig.put("buffer.spill.dir", folder.getRoot().getPath());
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andAnswer(() -> ServiceCallUtils.makeServiceCallWithResult(okResults(1))).anyTimes();
+        mockContext.requestCommit();
+        expectLastCall().times(2);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0)));
+        List<SinkRecord> spilled = new ArrayList<>();
+        for (int i = 1; i <= SinkTask.SPILL_CHUNKS_PER_FLUSH + 2; i++) {
+            spilled.add(record("doc" + i, i));
+        }
+        sinkTask.put(spilled);
+        long next = spilled.size() + 1;
+        Map<TopicPartition, OffsetAndMetadata> offsets = sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(next)));
+        Assert.assertEquals(SinkTask.SPILL_CHUNKS_PER_FLUSH + 1, bulkDocsCapture.getValues().size());
+        Assert.assertTrue(offsets.isEmpty());
+
+        offsets = sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(next)));
+        sinkTask.stop();
+
+        verify(mockCloudant, mockContext);
+        Assert.assertEquals(SinkTask.SPILL_CHUNKS_PER_FLUSH + 3, bulkDocsCapture.getValues().size());
+        Assert.assertEquals(next, offsets.get(tp).offset());
+    }
+
+    // a failed write rewinds the partitions, so the spilled records are dropped along with those in memory, and are
+    // only written once when they are consumed again
+    @Test
+    public void testRewindDropsSpilledRecords() throws IOException {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("buffer.max.records", "2");
+        extraConfig.put("buffer.spill.dir", folder.getRoot().getPath());
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andThrow(new RuntimeException("throttled"))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)));
+        mockContext.requestCommit();
+        expectLastCall().times(2);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0), record("b", 1)));
+        sinkTask.put(List.of(record("c", 2), record("d", 3)));
+        try {
+            sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(0)));
+            Assert.fail("Expected ConnectException");
+        } catch (ConnectException ce) {
+            // expected
+        }
+        Path spill = Files.list(folder.getRoot().toPath()).findFirst().get();
+        Assert.assertEquals(0, Files.size(spill));
+
+        // consumed again from the committed offset
+        sinkTask.put(List.of(record("a", 0), record("b", 1)));
+        sinkTask.put(List.of(record("c", 2), record("d", 3)));
+        Map<TopicPartition, OffsetAndMetadata> offsets = sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(4)));
+        sinkTask.stop();
+
+        verify(mockCloudant, mockContext);
+        Assert.assertEquals(4, offsets.get(tp).offset());
+        Assert.assertEquals(List.of(List.of("a", "b"), List.of("a", "b"), List.of("c", "d")), requestedIds());
+    }
+}
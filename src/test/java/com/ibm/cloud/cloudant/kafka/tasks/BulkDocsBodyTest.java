@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.ibm.cloud.cloudant.kafka.mappers.RawJsonDocument;
+import com.ibm.cloud.cloudant.kafka.mappers.SinkRecordToDocument;
+import com.ibm.cloud.cloudant.v1.model.BulkDocs;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import com.ibm.cloud.sdk.core.util.GsonSingleton;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class BulkDocsBodyTest {
+
+    private final SinkRecordToDocument mapper = new SinkRecordToDocument();
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // small reads, to cross document boundaries
+        byte[] b = new byte[7];
+        int n;
+        while ((n = in.read(b)) != -1) {
+            out.write(b, 0, n);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    // the streamed body must be the same JSON as serializing the converted documents
+    private void assertSameAsConverted(List<SinkRecord> records) throws IOException {
+        List<Document> documents = records.stream().map(mapper).collect(Collectors.toList());
+        JsonElement expected = JsonParser.parseString(
+                GsonSingleton.getGsonWithoutPrettyPrinting().toJson(new BulkDocs.Builder().docs(documents).build()));
+        List<DocumentWrite> writes = records.stream().map(DocumentWrite::new).collect(Collectors.toList());
+        JsonElement actual = JsonParser.parseString(read(new BulkDocsBody(writes)));
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testStructSameAsConverted() throws IOException {
+        Schema inner = SchemaBuilder.struct().field("name", Schema.STRING_SCHEMA).build();
+        Schema schema = SchemaBuilder.struct()
+                .field("_id", Schema.STRING_SCHEMA)
+                .field("count", Schema.INT32_SCHEMA)
+                .field("ratio", Schema.FLOAT64_SCHEMA)
+                .field("flag", Schema.BOOLEAN_SCHEMA)
+                .field("missing", Schema.OPTIONAL_STRING_SCHEMA)
+                .field("inner", inner)
+                .field("list", SchemaBuilder.array(inner).build())
+                .field("map", SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.STRING_SCHEMA).build())
+                .build();
+        Map<String, String> map = new HashMap<>();
+        map.put("k", "v \"quoted\" é");
+        Struct value = new Struct(schema)
+                .put("_id", "doc1")
+                .put("count", 42)
+                .put("ratio", 0.5)
+                .put("flag", true)
+                .put("inner", new Struct(inner).put("name", "x"))
+                .put("list", Arrays.asList(new Struct(inner).put("name", "y"), new Struct(inner).put("name", "z")))
+                .put("map", map);
+        assertSameAsConverted(List.of(new SinkRecord("test", 0, null, null, schema, value, 0)));
+    }
+
+    @Test
+    public void testMapsSameAsConverted() throws IOException {
+        List<SinkRecord> records = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> value = new HashMap<>();
+            value.put("_id", "doc" + i);
+            value.put("_rev", "1-abc");
+            value.put("n", i);
+            value.put("nested", Map.of("list", List.of(1, 2, 3)));
+            value.put("null", null);
+            records.add(new SinkRecord("test", 0, null, null, null, value, i));
+        }
+        // the header overrides _id
+        records.get(1).headers().addString("cloudant_doc_id", "fromHeader");
+        assertSameAsConverted(records);
+    }
+
+    @Test
+    public void testResolvedRevisionReplacesRecordRevision() throws IOException {
+        Map<String, Object> value = new HashMap<>();
+        value.put("_id", "doc1");
+        value.put("_rev", "1-stale");
+        DocumentWrite current = new DocumentWrite(new SinkRecord("test", 0, null, null, null, value, 0));
+        current.rev = "2-current";
+        current.revResolved = true;
+        DocumentWrite created = new DocumentWrite(new SinkRecord("test", 0, null, null, null, new HashMap<>(value), 1));
+        created.revResolved = true;
+
+        String body = read(new BulkDocsBody(List.of(current, created)));
+
+        Assert.assertEquals("{\"docs\":[{\"_rev\":\"2-current\",\"_id\":\"doc1\"},{\"_id\":\"doc1\"}]}", body);
+    }
+
+    @Test
+    public void testRawJsonCopiedWithOverrides() throws IOException {
+        String json = " {\"_id\":\"doc1\", \"_rev\" : \"1-stale\", \"s\":\"a,}\\\"b\", \"o\":{\"_id\":[]}} ";
+        DocumentWrite unchanged = new DocumentWrite(new SinkRecord("test", 0, null, null, null, json, 0));
+        unchanged.raw = new RawJsonDocument(json);
+        DocumentWrite overridden = new DocumentWrite(new SinkRecord("test", 0, null, null, null, json, 1));
+        overridden.record.headers().addString("cloudant_doc_id", "fromHeader");
+        overridden.raw = new RawJsonDocument(json);
+        overridden.revResolved = true;
+
+        String body = read(new BulkDocsBody(List.of(unchanged, overridden)));
+
+        Assert.assertEquals("{\"docs\":[" + json + ",{\"_id\":\"fromHeader\",\"s\":\"a,}\\\"b\",\"o\":{\"_id\":[]}}]}",
+                body);
+        Assert.assertEquals("doc1", unchanged.raw.getString("_id"));
+        Assert.assertNull(unchanged.raw.getString("o"));
+    }
+
+    @Test
+    public void testRawJsonMustBeAValidObject() {
+        for (String json : List.of("", "[]", "\"doc\"", "{\"a\":1", "{\"a\" 1}", "{\"a\":1}}", "{\"a\":}",
+                // nested values must be valid too
+                "{\"a\":[1,]}", "{\"a\":{\"b\" 1}}", "{\"a\":[tru]}", "{\"a\":{\"b\":01}}", "{\"a\":[\"\\uZZZZ\"]}",
+                "{\"a\":[NaN]}", "{\"a\":{\"b\":'c'}}")) {
+            Assert.assertThrows(json, IllegalArgumentException.class, () -> new RawJsonDocument(json));
+        }
+        Assert.assertTrue(new RawJsonDocument(" { } ").isEmpty());
+    }
+
+    @Test
+    public void testWithoutNewEdits() throws IOException {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("_id", "doc1");
+        value.put("_rev", "1-abc");
+        DocumentWrite write = new DocumentWrite(new SinkRecord("test", 0, null, null, null, value, 0));
+
+        String body = read(new BulkDocsBody(List.of(write), false));
+
+        Assert.assertEquals("{\"new_edits\":false,\"docs\":[{\"_id\":\"doc1\",\"_rev\":\"1-abc\"}]}", body);
+    }
+}
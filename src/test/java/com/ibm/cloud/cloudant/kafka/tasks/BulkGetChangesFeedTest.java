@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.google.gson.Gson;
+import com.ibm.cloud.cloudant.kafka.utils.ServiceCallUtils;
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.BulkGetQueryDocument;
+import com.ibm.cloud.cloudant.v1.model.BulkGetResult;
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.cloudant.v1.model.PostBulkGetOptions;
+import com.ibm.cloud.sdk.core.util.GsonSingleton;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+
+public class BulkGetChangesFeedTest {
+
+    private static final String DB_NAME = "foo";
+
+    private static final Gson gson = GsonSingleton.getGson();
+
+    private static ChangesResultItem change(String id, boolean deleted) {
+        return gson.fromJson(String.format("{\"seq\":\"%s-s\",\"id\":\"%s\",\"changes\":[{\"rev\":\"1-%s\"}]%s}",
+                id, id, id, deleted ? ",\"deleted\":true" : ""), ChangesResultItem.class);
+    }
+
+    private static PostBulkGetOptions options(String... ids) {
+        return new PostBulkGetOptions.Builder()
+                .db(DB_NAME)
+                .docs(Arrays.stream(ids).map(id -> new BulkGetQueryDocument.Builder().id(id).build()).collect(Collectors.toList()))
+                .revs(true)
+                .build();
+    }
+
+    // a _bulk_get response with the given documents, and none for the others
+    private static BulkGetResult result(List<String> found, String... missing) {
+        List<String> results = new ArrayList<>();
+        for (String id : found) {
+            results.add(String.format("{\"id\":\"%s\",\"docs\":[{\"ok\":{\"_id\":\"%s\",\"_rev\":\"2-%s\",\"n\":1}}]}", id, id, id));
+        }
+        for (String id : missing) {
+            results.add(String.format("{\"id\":\"%s\",\"docs\":[{\"error\":{\"id\":\"%s\",\"error\":\"not_found\",\"reason\":\"deleted\"}}]}", id, id));
+        }
+        return gson.fromJson("{\"results\":[" + String.join(",", results) + "]}", BulkGetResult.class);
+    }
+
+    // a feed which returns the given batches, then nothing
+    static ChangesFeed feedOf(List<List<ChangesResultItem>> batches) {
+        return new ChangesFeed() {
+            private int next = 0;
+
+            @Override
+            public List<ChangesResultItem> next(int max) {
+                return next < batches.size() ? batches.get(next++) : List.of();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    // documents are fetched in concurrent requests and the changes are returned in feed order
+    @Test
+    public void testDocumentsFetchedInFeedOrder() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        expect(mockCloudant.postBulkGet(options("a", "c"))).andReturn(ServiceCallUtils.makeServiceCallWithResult(result(List.of("a", "c"))));
+        expect(mockCloudant.postBulkGet(options("d"))).andReturn(ServiceCallUtils.makeServiceCallWithResult(result(List.of(), "d")));
+        replay(mockCloudant);
+
+        List<ChangesResultItem> batch = List.of(change("a", false), change("b", true), change("c", false), change("d", false));
+        BulkGetChangesFeed feed = new BulkGetChangesFeed(mockCloudant, DB_NAME, feedOf(List.of(batch)), 2);
+        try {
+            List<ChangesResultItem> changes = feed.next(10);
+            Assert.assertEquals(List.of("a-s", "b-s", "c-s", "d-s"),
+                    changes.stream().map(ChangesResultItem::getSeq).collect(Collectors.toList()));
+            Assert.assertEquals("2-a", changes.get(0).getDoc().getRev());
+            Assert.assertEquals(1.0, ((Number) changes.get(0).getDoc().get("n")).doubleValue(), 0);
+            // deleted in the feed, so not fetched
+            Assert.assertTrue(changes.get(1).isDeleted());
+            Assert.assertEquals("1-b", changes.get(1).getDoc().getRev());
+            Assert.assertTrue(changes.get(1).getDoc().isDeleted());
+            Assert.assertEquals("2-c", changes.get(2).getDoc().getRev());
+            // deleted after it was read from the feed
+            Assert.assertTrue(changes.get(3).getDoc().isDeleted());
+            Assert.assertTrue(feed.next(10).isEmpty());
+            EasyMock.verify(mockCloudant);
+        } finally {
+            feed.close();
+        }
+    }
+
+    // a document which fails to be fetched for another reason than not being found isn't handed on as deleted, the
+    // batch is fetched again at the next poll instead
+    @Test
+    public void testDocumentErrorRetried() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        BulkGetResult failed = gson.fromJson("{\"results\":[" +
+                "{\"id\":\"a\",\"docs\":[{\"ok\":{\"_id\":\"a\",\"_rev\":\"2-a\"}}]}," +
+                "{\"id\":\"b\",\"docs\":[{\"error\":{\"id\":\"b\",\"error\":\"timeout\",\"reason\":\"request timed out\"}}]}]}",
+                BulkGetResult.class);
+        expect(mockCloudant.postBulkGet(options("a", "b"))).andReturn(ServiceCallUtils.makeServiceCallWithResult(failed));
+        expect(mockCloudant.postBulkGet(options("a", "b"))).andReturn(ServiceCallUtils.makeServiceCallWithResult(result(List.of("a", "b"))));
+        replay(mockCloudant);
+
+        List<ChangesResultItem> batch = List.of(change("a", false), change("b", false));
+        BulkGetChangesFeed feed = new BulkGetChangesFeed(mockCloudant, DB_NAME, feedOf(List.of(batch)), 1);
+        try {
+            Assert.assertTrue(feed.next(10).isEmpty());
+            List<ChangesResultItem> changes = feed.next(10);
+            Assert.assertEquals(List.of("2-a", "2-b"), changes.stream().map(c -> c.getDoc().getRev()).collect(Collectors.toList()));
+            Assert.assertNull(changes.get(1).getDoc().isDeleted());
+            EasyMock.verify(mockCloudant);
+        } finally {
+            feed.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.utils.ServiceCallUtils;
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.cloudant.v1.model.PostChangesOptions;
+import com.ibm.cloud.sdk.core.service.exception.NotFoundException;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+
+public class ContinuousChangesFeedTest {
+
+    private static final String DB_NAME = "foo";
+
+    private static PostChangesOptions options(String since) {
+        return new PostChangesOptions.Builder()
+                .feed(PostChangesOptions.Feed.CONTINUOUS)
+                .heartbeat(ContinuousChangesFeed.HEARTBEAT_MS)
+                .db(DB_NAME)
+                .includeDocs(true)
+                .since(since)
+                .build();
+    }
+
+    private static InputStream lines(String... lines) {
+        return new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    // a feed with no more changes, which blocks until it is closed
+    private static class OpenStream extends InputStream {
+        private final CountDownLatch reading = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public int read() throws IOException {
+            reading.countDown();
+            try {
+                closed.await();
+            } catch (InterruptedException ie) {
+                throw new InterruptedIOException();
+            }
+            throw new IOException("closed");
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+
+    // changes are handed over in order, heartbeats are skipped and the feed is requested again from its last_seq
+    @Test
+    public void testChangesReadAcrossRequests() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        expect(mockCloudant.postChangesAsStream(options("0"))).andReturn(ServiceCallUtils.makeServiceCallWithResult(lines(
+                "{\"seq\":\"1-a\",\"id\":\"a\",\"changes\":[{\"rev\":\"1-x\"}],\"doc\":{\"_id\":\"a\",\"_rev\":\"1-x\"}}",
+                "",
+                "{\"seq\":\"2-b\",\"id\":\"b\",\"changes\":[{\"rev\":\"2-y\"}],\"deleted\":true}",
+                "{\"last_seq\":\"2-b\",\"pending\":0}")));
+        OpenStream open = new OpenStream();
+        expect(mockCloudant.postChangesAsStream(options("2-b"))).andReturn(ServiceCallUtils.makeServiceCallWithResult(open));
+        replay(mockCloudant);
+
+        ContinuousChangesFeed feed = new ContinuousChangesFeed(mockCloudant, DB_NAME, "0", true, 10);
+        List<ChangesResultItem> changes = new ArrayList<>();
+        while (changes.size() < 2) {
+            changes.addAll(feed.next(10));
+        }
+        Assert.assertEquals(2, changes.size());
+        Assert.assertEquals("1-a", changes.get(0).getSeq());
+        Assert.assertEquals("a", changes.get(0).getDoc().getId());
+        Assert.assertEquals("2-b", changes.get(1).getSeq());
+        Assert.assertTrue(changes.get(1).isDeleted());
+        open.reading.await();
+        Assert.assertTrue(feed.next(10).isEmpty());
+        feed.close();
+        EasyMock.verify(mockCloudant);
+    }
+
+    // a full queue holds up the reader without losing changes, and next returns at most max changes
+    @Test
+    public void testQueueIsBounded() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        String[] rows = new String[5];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = String.format("{\"seq\":\"%d-s\",\"id\":\"d%d\",\"changes\":[{\"rev\":\"1-x\"}]}", i + 1, i);
+        }
+        expect(mockCloudant.postChangesAsStream(options("0"))).andReturn(ServiceCallUtils.makeServiceCallWithResult(lines(rows)));
+        expect(mockCloudant.postChangesAsStream(options("5-s"))).andReturn(ServiceCallUtils.makeServiceCallWithResult(new OpenStream()));
+        replay(mockCloudant);
+
+        ContinuousChangesFeed feed = new ContinuousChangesFeed(mockCloudant, DB_NAME, "0", true, 2);
+        List<String> seqs = new ArrayList<>();
+        while (seqs.size() < 5) {
+            List<ChangesResultItem> changes = feed.next(2);
+            Assert.assertTrue(changes.size() <= 2);
+            changes.forEach(c -> seqs.add(c.getSeq()));
+        }
+        Assert.assertEquals(List.of("1-s", "2-s", "3-s", "4-s", "5-s"), seqs);
+        feed.close();
+    }
+
+    // an error which can't be fixed by trying again fails the next poll
+    @Test
+    public void testClientErrorFails() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        okhttp3.Response response = new okhttp3.Response.Builder()
+                .request(new Request.Builder().url("http://foo/" + DB_NAME + "/_changes").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(404)
+                .message("Not Found")
+                .body(ResponseBody.create("{\"error\":\"not_found\"}", MediaType.get("application/json")))
+                .build();
+        NotFoundException notFound = new NotFoundException(response);
+        expect(mockCloudant.postChangesAsStream(options("0"))).andThrow(notFound);
+        replay(mockCloudant);
+
+        ContinuousChangesFeed feed = new ContinuousChangesFeed(mockCloudant, DB_NAME, "0", true, 10);
+        try {
+            for (int i = 0; i < 10; i++) {
+                feed.next(10);
+            }
+            Assert.fail("Expected ConnectException");
+        } catch (ConnectException ce) {
+            Assert.assertSame(notFound, ce.getCause());
+        } finally {
+            feed.close();
+        }
+    }
+}
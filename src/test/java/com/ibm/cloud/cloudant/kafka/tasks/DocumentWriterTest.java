@@ -0,0 +1,340 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.utils.ServiceCallUtils;
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import com.ibm.cloud.cloudant.v1.model.DocumentResult;
+import com.ibm.cloud.cloudant.v1.model.Ok;
+import com.ibm.cloud.cloudant.v1.model.PostBulkDocsOptions;
+import com.ibm.cloud.cloudant.v1.model.PutDatabaseOptions;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.easymock.Capture;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.api.easymock.PowerMock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArgument;
+import static org.easymock.EasyMock.makeThreadSafe;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reset;
+import static org.easymock.EasyMock.verify;
+
+// tests of converting records and writing them in batches against a mock client
+@SuppressWarnings("unchecked")
+public class DocumentWriterTest extends MockSinkTest {
+
+    // batches end at batch.max.bytes even when they have fewer than batch.size documents
+    @Test
+    public void testBatchesLimitedByBytes() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("batch.max.bytes", "100");
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(1)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(1)));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        // each small document is about 20 bytes, the large one is about 200
+        SinkRecord large = record("large", 2);
+        ((Map<String, Object>) large.value()).put("data", "x".repeat(200));
+        sinkTask.put(List.of(record("a", 0), record("b", 1), large, record("c", 3)));
+        sinkTask.flush(Collections.emptyMap());
+
+        Assert.assertEquals(3, bulkDocsCapture.getValues().size());
+        Assert.assertEquals(2, bulkDocsCapture.getValues().get(0).bulkDocs().docs().size());
+        Assert.assertEquals("large", bulkDocsCapture.getValues().get(1).bulkDocs().docs().get(0).get("_id"));
+        Assert.assertEquals(1, bulkDocsCapture.getValues().get(2).bulkDocs().docs().size());
+    }
+
+    // only the documents which failed with a transient error are written again
+    @Test
+    public void testRetryOnlyTransientlyFailedDocuments() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.retry.backoff.ms", "1");
+        List<DocumentResult> firstResults = okResults(2);
+        firstResults.add(1, failedResult("too_many_requests"));
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(firstResults))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(1)));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0), record("b", 1), record("c", 2)));
+        sinkTask.flush(Collections.emptyMap());
+
+        Assert.assertEquals(2, bulkDocsCapture.getValues().size());
+        Assert.assertEquals(3, bulkDocsCapture.getValues().get(0).bulkDocs().docs().size());
+        List<Document> retried = bulkDocsCapture.getValues().get(1).bulkDocs().docs();
+        Assert.assertEquals(1, retried.size());
+        Assert.assertEquals("b", retried.get(0).get("_id"));
+    }
+
+    // only the latest record for each document is written, but every record's offset is committed
+    @Test
+    public void testCoalesceWritesLatestRecordPerDocument() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.coalesce", "true");
+        extraConfig.put("cloudant.write.async", "true");
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        SinkRecord a1 = record("a", 0);
+        ((Map<String, Object>) a1.value()).put("version", 1);
+        SinkRecord a2 = record("a", 2);
+        ((Map<String, Object>) a2.value()).put("version", 2);
+        sinkTask.put(List.of(a1, record("b", 1), a2));
+        sinkTask.flush(Collections.emptyMap());
+        Map<TopicPartition, OffsetAndMetadata> offsets = sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(3)));
+        sinkTask.stop();
+
+        Assert.assertEquals(1, bulkDocsCapture.getValues().size());
+        List<Document> docs = bulkDocsCapture.getValue().bulkDocs().docs();
+        Assert.assertEquals(2, docs.size());
+        Assert.assertEquals("b", docs.get(0).get("_id"));
+        Assert.assertEquals("a", docs.get(1).get("_id"));
+        Assert.assertEquals(2, docs.get(1).get("version"));
+        Assert.assertEquals(3, offsets.get(tp).offset());
+    }
+
+    // the database is created once, before the first write, with the configured options
+    @Test
+    public void testDatabaseCreatedOnce() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.db.partitioned", "true");
+        extraConfig.put("cloudant.db.shards", "4");
+        reset(mockCloudant);
+        Capture<PutDatabaseOptions> putDatabaseCapture = newCapture();
+        expect(mockCloudant.putDatabase(capture(putDatabaseCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(PowerMock.createMock(Ok.class))).once();
+        expect(mockCloudant.postBulkDocs(anyObject()))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(1))).times(2);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0)));
+        sinkTask.flush(Collections.emptyMap());
+        sinkTask.put(List.of(record("b", 1)));
+        sinkTask.flush(Collections.emptyMap());
+
+        verify(mockCloudant);
+        Assert.assertEquals("foo", putDatabaseCapture.getValue().db());
+        Assert.assertTrue(putDatabaseCapture.getValue().partitioned());
+        Assert.assertEquals(Long.valueOf(4), putDatabaseCapture.getValue().q());
+    }
+
+    // creating one database doesn't hold up writes to others
+    @Test
+    public void testSlowDatabaseCreationOnlyBlocksItsDatabase() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.db.route", "${header:db}");
+        extraConfig.put("cloudant.db.route.concurrency", "2");
+        CountDownLatch fastWritten = new CountDownLatch(1);
+        AtomicBoolean fastWrittenFirst = new AtomicBoolean();
+        mockCloudant = PowerMock.createMock(Cloudant.class);
+        // otherwise calls to the mock are made one at a time
+        makeThreadSafe(mockCloudant, false);
+        expect(mockCloudant.putDatabase(anyObject())).andAnswer(() -> {
+            PutDatabaseOptions options = getCurrentArgument(0);
+            if ("slow".equals(options.db())) {
+                fastWrittenFirst.set(fastWritten.await(10, TimeUnit.SECONDS));
+            }
+            return ServiceCallUtils.makeServiceCallWithResult(PowerMock.createMock(Ok.class));
+        }).times(2);
+        expect(mockCloudant.postBulkDocs(anyObject())).andAnswer(() -> {
+            PostBulkDocsOptions options = getCurrentArgument(0);
+            if ("fast".equals(options.db())) {
+                fastWritten.countDown();
+            }
+            return ServiceCallUtils.makeServiceCallWithResult(okResults(1));
+        }).times(2);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        SinkRecord slow = record("a", 0);
+        slow.headers().addString("db", "slow");
+        SinkRecord fast = record("b", 1);
+        fast.headers().addString("db", "fast");
+        sinkTask.put(List.of(slow, fast));
+        sinkTask.flush(Collections.emptyMap());
+        sinkTask.stop();
+
+        verify(mockCloudant);
+        Assert.assertTrue(fastWrittenFirst.get());
+    }
+
+    // with streaming, the request has a body instead of converted documents
+    @Test
+    public void testStreamingWritesBody() throws IOException {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.streaming", "true");
+        List<String> bodies = new ArrayList<>();
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andAnswer(() -> {
+                    // the body can only be read once, by the client
+                    bodies.add(new String(bulkDocsCapture.getValue().body().readAllBytes(), StandardCharsets.UTF_8));
+                    return ServiceCallUtils.makeServiceCallWithResult(okResults(2));
+                });
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0), record("b", 1)));
+        sinkTask.flush(Collections.emptyMap());
+
+        Assert.assertNull(bulkDocsCapture.getValue().bulkDocs());
+        Assert.assertEquals(List.of("{\"docs\":[{\"_id\":\"a\"},{\"_id\":\"b\"}]}"), bodies);
+    }
+
+    // JSON string and byte[] values are copied into the body, with the upsert revision added
+    @Test
+    public void testPassthroughWritesRawJson() throws IOException {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.passthrough", "true");
+        extraConfig.put("cloudant.write.mode", "upsert");
+        extraConfig.put("cloudant.rev.cache.size", "0");
+        List<String> bodies = new ArrayList<>();
+        expect(mockCloudant.postAllDocs(anyObject())).andReturn(
+                ServiceCallUtils.makeServiceCallWithResult(allDocsResult("a", "1-a")));
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andAnswer(() -> {
+                    bodies.add(new String(bulkDocsCapture.getValue().body().readAllBytes(), StandardCharsets.UTF_8));
+                    return ServiceCallUtils.makeServiceCallWithResult(okResults(2));
+                });
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(
+                new SinkRecord("test", 0, null, null, null, "{\"_id\": \"a\", \"n\": [1, {\"x\": null}]}", 0),
+                new SinkRecord("test", 0, null, null, null, "{\"_id\":\"b\"}".getBytes(StandardCharsets.UTF_8), 1)));
+        sinkTask.flush(Collections.emptyMap());
+
+        Assert.assertEquals(List.of("{\"docs\":[{\"_rev\":\"1-a\",\"_id\": \"a\",\"n\": [1, {\"x\": null}]},{\"_id\":\"b\"}]}"),
+                bodies);
+    }
+
+    // a raw JSON value which isn't valid is reported on its own, and the rest of its batch is written
+    @Test
+    public void testPassthroughReportsInvalidJson() throws IOException {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.passthrough", "true");
+        ErrantRecordReporter reporter = mock(ErrantRecordReporter.class);
+        Capture<SinkRecord> reported = newCapture();
+        expect(reporter.report(capture(reported), anyObject(IllegalArgumentException.class))).andReturn(null);
+        replay(reporter);
+        reset(mockContext);
+        expect(mockContext.errantRecordReporter()).andReturn(reporter).anyTimes();
+        List<String> bodies = new ArrayList<>();
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andAnswer(() -> {
+                    bodies.add(new String(bulkDocsCapture.getValue().body().readAllBytes(), StandardCharsets.UTF_8));
+                    return ServiceCallUtils.makeServiceCallWithResult(okResults(2));
+                });
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(
+                new SinkRecord("test", 0, null, null, null, "{\"_id\":\"a\"}", 0),
+                new SinkRecord("test", 0, null, null, null, "{\"_id\":\"b\",\"n\":[1,}", 1),
+                new SinkRecord("test", 0, null, null, null, "{\"_id\":\"c\"}", 2)));
+        sinkTask.flush(Collections.emptyMap());
+
+        verify(reporter);
+        Assert.assertEquals(1L, reported.getValue().kafkaOffset());
+        Assert.assertEquals(List.of("{\"docs\":[{\"_id\":\"a\"},{\"_id\":\"c\"}]}"), bodies);
+    }
+
+    // records converted on several threads are still written in order
+    @Test
+    public void testParallelConversionKeepsOrder() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.conversion.threads", "4");
+        extraConfig.put("batch.size", "10");
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(10))).times(10);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        List<SinkRecord> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(record("doc" + i, i));
+        }
+        sinkTask.put(records);
+        sinkTask.flush(Collections.emptyMap());
+        sinkTask.stop();
+
+        List<Object> ids = bulkDocsCapture.getValues().stream()
+                .flatMap(options -> options.bulkDocs().docs().stream())
+                .map(document -> document.get("_id"))
+                .collect(Collectors.toList());
+        Assert.assertEquals(records.stream().map(SinkRecord::key).collect(Collectors.toList()), ids);
+    }
+
+    // documents without IDs get them from their offsets or keys, and an offset ID which already exists was written
+    // by an earlier attempt
+    @Test
+    public void testDeterministicIds() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.id.strategy", "offset");
+        reset(mockContext);
+        // nothing should be reported
+        expect(mockContext.errantRecordReporter()).andReturn(mock(ErrantRecordReporter.class)).anyTimes();
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(List.of(okResults(1).get(0), failedResult("conflict"))));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(
+                new SinkRecord("test", 0, null, "k", null, new HashMap<>(Map.of("n", 1)), 5),
+                new SinkRecord("test", 0, null, "k", null, new HashMap<>(Map.of("n", 2)), 6)));
+        sinkTask.flush(Collections.emptyMap());
+
+        verify(mockCloudant);
+        List<Document> docs = bulkDocsCapture.getValue().bulkDocs().docs();
+        Assert.assertEquals("test-0-5", docs.get(0).get("_id"));
+        Assert.assertEquals("test-0-6", docs.get(1).get("_id"));
+
+        sinkTask.stop();
+        bulkDocsCapture.reset();
+        PowerMock.resetAll();
+        setup();
+        extraConfig.put("cloudant.id.strategy", "key");
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)));
+        sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(
+                new SinkRecord("test", 0, null, "k", null, new HashMap<>(Map.of("n", 1)), 5),
+                record("a", 6)));
+        sinkTask.flush(Collections.emptyMap());
+
+        docs = bulkDocsCapture.getValue().bulkDocs().docs();
+        Assert.assertEquals("k", docs.get(0).get("_id"));
+        // an ID in the record is kept
+        Assert.assertEquals("a", docs.get(1).get("_id"));
+    }
+}
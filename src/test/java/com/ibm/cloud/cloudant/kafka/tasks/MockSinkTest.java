@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.caching.ClientManagerUtils;
+import com.ibm.cloud.cloudant.kafka.utils.ServiceCallUtils;
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.AllDocsResult;
+import com.ibm.cloud.cloudant.v1.model.DocsResultRow;
+import com.ibm.cloud.cloudant.v1.model.DocsResultRowValue;
+import com.ibm.cloud.cloudant.v1.model.DocumentResult;
+import com.ibm.cloud.cloudant.v1.model.Ok;
+import com.ibm.cloud.cloudant.v1.model.PostBulkDocsOptions;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTaskContext;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.junit.After;
+import org.junit.Before;
+import org.powermock.api.easymock.PowerMock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+
+// a sink task writing to a mock client, for tests of the sink write path
+public abstract class MockSinkTest {
+
+    protected static final String connectionName = "_mock";
+
+    protected final TopicPartition tp = new TopicPartition("test", 0);
+
+    protected Cloudant mockCloudant;
+    protected SinkTaskContext mockContext;
+    protected final Capture<PostBulkDocsOptions> bulkDocsCapture = newCapture(CaptureType.ALL);
+
+    protected static SinkRecord record(String id, long offset) {
+        return record(0, id, offset);
+    }
+
+    protected static SinkRecord record(int partition, String id, long offset) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("_id", id);
+        return new SinkRecord("test", partition, null, id, null, map, offset);
+    }
+
+    protected static List<DocumentResult> okResults(int n) {
+        List<DocumentResult> results = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            DocumentResult result = mock(DocumentResult.class);
+            expect(result.isOk()).andReturn(Boolean.TRUE).anyTimes();
+            replay(result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    protected static DocumentResult failedResult(String error) {
+        DocumentResult result = mock(DocumentResult.class);
+        expect(result.isOk()).andReturn(null).anyTimes();
+        expect(result.getError()).andReturn(error).anyTimes();
+        replay(result);
+        return result;
+    }
+
+    // _all_docs response with the given id to rev pairs
+    protected static AllDocsResult allDocsResult(String... idsAndRevs) {
+        List<DocsResultRow> rows = new ArrayList<>();
+        for (int i = 0; i < idsAndRevs.length; i += 2) {
+            DocsResultRowValue value = mock(DocsResultRowValue.class);
+            expect(value.getRev()).andReturn(idsAndRevs[i + 1]).anyTimes();
+            expect(value.isDeleted()).andReturn(null).anyTimes();
+            DocsResultRow row = mock(DocsResultRow.class);
+            expect(row.getId()).andReturn(idsAndRevs[i]).anyTimes();
+            expect(row.getValue()).andReturn(value).anyTimes();
+            replay(value, row);
+            rows.add(row);
+        }
+        AllDocsResult result = mock(AllDocsResult.class);
+        expect(result.getRows()).andReturn(rows).anyTimes();
+        replay(result);
+        return result;
+    }
+
+    // the document IDs in each _bulk_docs request, in order
+    protected List<List<Object>> requestedIds() {
+        return bulkDocsCapture.getValues().stream()
+                .map(request -> request.bulkDocs().docs().stream().map(d -> d.get("_id")).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+    @Before
+    public void setup() {
+        mockCloudant = PowerMock.createMock(Cloudant.class);
+        mockContext = mock(SinkTaskContext.class);
+        expect(mockContext.errantRecordReporter()).andReturn(null).anyTimes();
+        expect(mockCloudant.putDatabase(anyObject())).andReturn(ServiceCallUtils.makeServiceCallWithResult(PowerMock.createMock(Ok.class))).anyTimes();
+    }
+
+    // force the task to use our mock client and start it with some minimal config
+    protected SinkTask startTask(Map<String, String> extraConfig) {
+        ClientManagerUtils.addClientToCache(connectionName, mockCloudant);
+        replay(mockCloudant);
+        replay(mockContext);
+        Map<String, String> configMap = new HashMap<>();
+        configMap.put("name", connectionName);
+        configMap.put("cloudant.url", "http://foo");
+        configMap.put("cloudant.db", "foo");
+        configMap.put("topics", "test");
+        configMap.putAll(extraConfig);
+        SinkTask sinkTask = new SinkTask();
+        sinkTask.initialize(mockContext);
+        sinkTask.start(configMap);
+        return sinkTask;
+    }
+
+    @After
+    public void teardown() {
+        PowerMock.resetAll();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.utils.ServiceCallUtils;
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import com.ibm.cloud.cloudant.v1.model.DocumentResult;
+import com.ibm.cloud.cloudant.v1.model.GetLocalDocumentOptions;
+import com.ibm.cloud.cloudant.v1.model.Ok;
+import com.ibm.cloud.cloudant.v1.model.PostBulkDocsOptions;
+import com.ibm.cloud.cloudant.v1.model.PutDatabaseOptions;
+import com.ibm.cloud.cloudant.v1.model.PutLocalDocumentOptions;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.api.easymock.PowerMock;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArgument;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+// tests of offset checkpoints against a mock client
+public class OffsetCheckpointTest extends MockSinkTest {
+
+    // records before a partition's checkpoint are skipped, and the offset written up to is saved in the checkpoint
+    @Test
+    public void testOffsetCheckpointSkipsWrittenRecords() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.offset.checkpoint", "true");
+        Document checkpoint = new Document();
+        checkpoint.put("_rev", "0-1");
+        checkpoint.put("offset", 2);
+        Capture<GetLocalDocumentOptions> getCapture = newCapture();
+        expect(mockCloudant.getLocalDocument(capture(getCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(checkpoint));
+        DocumentResult saved = mock(DocumentResult.class);
+        expect(saved.getRev()).andReturn("0-2").anyTimes();
+        replay(saved);
+        Capture<PutLocalDocumentOptions> putCapture = newCapture();
+        expect(mockCloudant.putLocalDocument(capture(putCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(saved));
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.open(List.of(tp));
+        sinkTask.put(List.of(record("a", 0), record("b", 1), record("c", 2), record("d", 3)));
+        sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(4)));
+        // nothing more written, so not saved again
+        sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(4)));
+
+        verify(mockCloudant);
+        Assert.assertEquals("kafka-connect-_mock-test-0", getCapture.getValue().docId());
+        List<Document> docs = bulkDocsCapture.getValue().bulkDocs().docs();
+        Assert.assertEquals(List.of("c", "d"), docs.stream().map(d -> d.get("_id")).collect(Collectors.toList()));
+        Document written = putCapture.getValue().document();
+        Assert.assertEquals("0-1", written.get("_rev"));
+        Assert.assertEquals(4L, written.get("offset"));
+    }
+
+    // the checkpoint is saved once per flush, with the batches written before a failed write, so that they are skipped
+    // when the partition is rewound and consumed again
+    @Test
+    public void testOffsetCheckpointSavedPerFlush() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.offset.checkpoint", "true");
+        extraConfig.put("batch.size", "2");
+        Document checkpoint = new Document();
+        checkpoint.put("_rev", "0-1");
+        checkpoint.put("offset", 0);
+        expect(mockCloudant.getLocalDocument(anyObject()))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(checkpoint));
+        DocumentResult saved = mock(DocumentResult.class);
+        expect(saved.getRev()).andReturn("0-2").anyTimes();
+        replay(saved);
+        Capture<PutLocalDocumentOptions> putCapture = newCapture(CaptureType.ALL);
+        expect(mockCloudant.putLocalDocument(capture(putCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(saved)).anyTimes();
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2))).times(2)
+                .andThrow(new RuntimeException("throttled"))
+                .andAnswer(() -> ServiceCallUtils.makeServiceCallWithResult(
+                        okResults(((PostBulkDocsOptions) getCurrentArgument(0)).bulkDocs().docs().size()))).anyTimes();
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.open(List.of(tp));
+        List<SinkRecord> records = List.of(record("a", 0), record("b", 1), record("c", 2), record("d", 3),
+                record("e", 4), record("f", 5));
+        sinkTask.put(records);
+        Assert.assertThrows(ConnectException.class, () -> sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(6))));
+        // saved once, with the two batches written before the third failed
+        Assert.assertEquals(List.of(4L), putCapture.getValues().stream()
+                .map(put -> put.document().get("offset")).collect(Collectors.toList()));
+
+        // rewound to the committed offset
+        sinkTask.put(records);
+        sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(6)));
+
+        Assert.assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e", "f"), List.of("e", "f")), requestedIds());
+        Assert.assertEquals(List.of(4L, 6L), putCapture.getValues().stream()
+                .map(put -> put.document().get("offset")).collect(Collectors.toList()));
+    }
+
+    // the checkpoints are saved in cloudant.db, which is created even if every record is routed to other databases
+    @Test
+    public void testOffsetCheckpointDatabaseCreatedWhenRouted() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.offset.checkpoint", "true");
+        extraConfig.put("cloudant.db.route", "routed");
+        Capture<PutDatabaseOptions> putDatabaseCapture = newCapture(CaptureType.ALL);
+        mockCloudant = PowerMock.createMock(Cloudant.class);
+        expect(mockCloudant.putDatabase(capture(putDatabaseCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(PowerMock.createMock(Ok.class))).times(2);
+        expect(mockCloudant.getLocalDocument(anyObject()))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(null));
+        DocumentResult saved = mock(DocumentResult.class);
+        expect(saved.getRev()).andReturn("0-1").anyTimes();
+        replay(saved);
+        Capture<PutLocalDocumentOptions> putCapture = newCapture();
+        expect(mockCloudant.putLocalDocument(capture(putCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(saved));
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2)));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.open(List.of(tp));
+        sinkTask.put(List.of(record("a", 0), record("b", 1)));
+        sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(2)));
+
+        verify(mockCloudant);
+        Assert.assertEquals(List.of("routed", "foo"), putDatabaseCapture.getValues().stream()
+                .map(PutDatabaseOptions::db).collect(Collectors.toList()));
+        Assert.assertEquals("foo", putCapture.getValue().db());
+        Assert.assertEquals(2L, putCapture.getValue().document().get("offset"));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class OffsetTrackerTest {
+
+    private final TopicPartition tp0 = new TopicPartition("test", 0);
+    private final TopicPartition tp1 = new TopicPartition("test", 1);
+    private final List<TopicPartition> assigned = Arrays.asList(tp0, tp1);
+
+    private static SinkRecord record(int partition, long offset) {
+        return new SinkRecord("test", partition, null, null, null, Collections.emptyMap(), offset);
+    }
+
+    @Test
+    public void testNothingCommittableUntilDone() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.track(record(0, 10));
+        Assert.assertTrue(tracker.committableOffsets(assigned).isEmpty());
+    }
+
+    @Test
+    public void testCommitsContiguousPrefixOnly() {
+        OffsetTracker tracker = new OffsetTracker();
+        OffsetTracker.Entry e10 = tracker.track(record(0, 10));
+        OffsetTracker.Entry e11 = tracker.track(record(0, 11));
+        OffsetTracker.Entry e12 = tracker.track(record(0, 12));
+        OffsetTracker.Entry e5 = tracker.track(record(1, 5));
+
+        // a later record finishing first must not advance the offset past an earlier unfinished one
+        e12.markDone();
+        e5.markDone();
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.committableOffsets(assigned);
+        Assert.assertFalse(offsets.containsKey(tp0));
+        Assert.assertEquals(6, offsets.get(tp1).offset());
+
+        e10.markDone();
+        offsets = tracker.committableOffsets(assigned);
+        Assert.assertEquals(11, offsets.get(tp0).offset());
+
+        e11.markDone();
+        offsets = tracker.committableOffsets(assigned);
+        Assert.assertEquals(13, offsets.get(tp0).offset());
+        Assert.assertEquals(6, offsets.get(tp1).offset());
+    }
+
+    @Test
+    public void testRemovedAndUnassignedPartitionsNotCommitted() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.track(record(0, 1)).markDone();
+        tracker.track(record(1, 1)).markDone();
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.committableOffsets(Collections.singletonList(tp0));
+        Assert.assertEquals(1, offsets.size());
+        Assert.assertEquals(2, offsets.get(tp0).offset());
+
+        tracker.remove(Collections.singletonList(tp0));
+        Assert.assertTrue(tracker.committableOffsets(Collections.singletonList(tp0)).isEmpty());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.utils.ServiceCallUtils;
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.cloudant.v1.model.PostChangesOptions;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+
+public class PrefetchChangesFeedTest {
+
+    private static final String DB_NAME = "foo";
+
+    private static final int BATCH_SIZE = 2;
+
+    private static PostChangesOptions options(String since) {
+        return new PostChangesOptions.Builder()
+                .feed(PostChangesOptions.Feed.LONGPOLL)
+                .timeout(60 * 1000L)
+                .db(DB_NAME)
+                .includeDocs(true)
+                .since(since)
+                .limit(BATCH_SIZE)
+                .build();
+    }
+
+    // a response with a change for each of the given sequence IDs
+    private static String response(String lastSeq, String... seqs) {
+        String results = Arrays.stream(seqs)
+                .map(seq -> String.format("{\"seq\":\"%s\",\"id\":\"d%s\",\"changes\":[{\"rev\":\"1-x\"}],\"doc\":{\"_id\":\"d%s\"}}", seq, seq, seq))
+                .collect(Collectors.joining(","));
+        return String.format("{\"results\":[%s],\"last_seq\":\"%s\",\"pending\":0}", results, lastSeq);
+    }
+
+    private static void expectResponse(Cloudant mockCloudant, String since, String response, AtomicInteger requests) {
+        expect(mockCloudant.postChangesAsStream(options(since))).andAnswer(() -> {
+            requests.incrementAndGet();
+            return ServiceCallUtils.makeServiceCallWithResult(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+        });
+    }
+
+    // a request which doesn't finish before the feed is closed
+    private static void expectOpen(Cloudant mockCloudant, String since) {
+        expect(mockCloudant.postChangesAsStream(options(since))).andAnswer(() -> {
+            Thread.sleep(Long.MAX_VALUE);
+            return null;
+        });
+    }
+
+    private static List<String> seqs(List<ChangesResultItem> changes) {
+        return changes.stream().map(ChangesResultItem::getSeq).collect(Collectors.toList());
+    }
+
+    // batches are requested ahead up to the prefetch depth, each from the last_seq of the one before
+    @Test
+    public void testBatchesPrefetchedInOrder() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        AtomicInteger requests = new AtomicInteger();
+        expectResponse(mockCloudant, "0", response("2", "1", "2"), requests);
+        expectResponse(mockCloudant, "2", response("4", "3", "4"), requests);
+        expectResponse(mockCloudant, "4", response("5", "5"), requests);
+        // a longpoll which timed out
+        expectResponse(mockCloudant, "5", response("6"), requests);
+        expectOpen(mockCloudant, "6");
+        replay(mockCloudant);
+
+        PrefetchChangesFeed feed = new PrefetchChangesFeed(mockCloudant, DB_NAME, "0", true, BATCH_SIZE, 2, Long.MAX_VALUE);
+        try {
+            // two batches ahead, and no more until one is taken
+            waitFor(requests, 2);
+            Thread.sleep(100);
+            Assert.assertEquals(2, requests.get());
+
+            Assert.assertEquals(List.of("1", "2"), seqs(feed.next(BATCH_SIZE)));
+            Assert.assertEquals(List.of("3", "4"), seqs(feed.next(BATCH_SIZE)));
+            Assert.assertEquals(List.of("5"), seqs(feed.next(BATCH_SIZE)));
+            Assert.assertEquals(List.of(), seqs(feed.next(BATCH_SIZE)));
+        } finally {
+            feed.close();
+        }
+    }
+
+    // once the batches held reach the byte limit no more are requested
+    @Test
+    public void testPrefetchLimitedByBytes() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        AtomicInteger requests = new AtomicInteger();
+        expectResponse(mockCloudant, "0", response("2", "1", "2"), requests);
+        expectResponse(mockCloudant, "2", response("3", "3"), requests);
+        expectOpen(mockCloudant, "3");
+        replay(mockCloudant);
+
+        PrefetchChangesFeed feed = new PrefetchChangesFeed(mockCloudant, DB_NAME, "0", true, BATCH_SIZE, 10, 1);
+        try {
+            waitFor(requests, 1);
+            Thread.sleep(100);
+            Assert.assertEquals(1, requests.get());
+            Assert.assertEquals(List.of("1", "2"), seqs(feed.next(BATCH_SIZE)));
+            Assert.assertEquals(List.of("3"), seqs(feed.next(BATCH_SIZE)));
+            Assert.assertEquals(2, requests.get());
+        } finally {
+            feed.close();
+        }
+    }
+
+    // a batch with more changes than are asked for is split, and the rest are returned first next time
+    @Test
+    public void testBatchSplitToMax() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        AtomicInteger requests = new AtomicInteger();
+        expectResponse(mockCloudant, "0", response("2", "1", "2"), requests);
+        expectResponse(mockCloudant, "2", response("4", "3", "4"), requests);
+        expectOpen(mockCloudant, "4");
+        replay(mockCloudant);
+
+        PrefetchChangesFeed feed = new PrefetchChangesFeed(mockCloudant, DB_NAME, "0", true, BATCH_SIZE, 2, Long.MAX_VALUE);
+        try {
+            waitFor(requests, 2);
+            Assert.assertEquals(List.of("1"), seqs(feed.next(1)));
+            Assert.assertEquals(List.of("2"), seqs(feed.next(1)));
+            Assert.assertEquals(List.of("3"), seqs(feed.next(1)));
+            Assert.assertEquals(List.of("4"), seqs(feed.next(BATCH_SIZE)));
+        } finally {
+            feed.close();
+        }
+    }
+
+    private static void waitFor(AtomicInteger requests, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (requests.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class RevisionCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        RevisionCache cache = new RevisionCache(2);
+        cache.put("a", "1-a");
+        cache.put("b", "1-b");
+        // "a" is now more recently used than "b"
+        Assert.assertEquals("1-a", cache.get("a"));
+        cache.put("c", "1-c");
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals("1-a", cache.get("a"));
+        Assert.assertEquals("1-c", cache.get("c"));
+        Assert.assertEquals(3, cache.hits());
+        Assert.assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("test.revs");
+        RevisionCache cache = new RevisionCache(10);
+        cache.put("a", "1-a");
+        cache.put("été", "2-b");
+        cache.save(file);
+
+        RevisionCache loaded = new RevisionCache(10);
+        Assert.assertTrue(loaded.load(file));
+        Assert.assertEquals(2, loaded.size());
+        Assert.assertEquals("1-a", loaded.get("a"));
+        Assert.assertEquals("2-b", loaded.get("été"));
+    }
+
+    @Test
+    public void testLoadMissingFile() throws IOException {
+        RevisionCache cache = new RevisionCache(10);
+        Assert.assertFalse(cache.load(folder.getRoot().toPath().resolve("missing.revs")));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadTruncatedFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("test.revs");
+        RevisionCache cache = new RevisionCache(10);
+        cache.put("a", "1-a");
+        cache.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 2));
+        new RevisionCache(10).load(file);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.caching.ClientManagerUtils;
+import com.ibm.cloud.cloudant.kafka.utils.ServiceCallUtils;
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.Ok;
+import com.ibm.cloud.cloudant.v1.model.PostBulkDocsOptions;
+import com.ibm.cloud.cloudant.v1.model.PutDatabaseOptions;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.api.easymock.PowerMock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+// tests of routing records to databases, accounts and partitions against a mock client
+public class RoutingTest extends MockSinkTest {
+
+    // records are written to the database their route gives, each database created before its first write
+    @Test
+    public void testRoutesRecordsToDatabases() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.db.route", "${topic}-${header:region}");
+        Capture<PutDatabaseOptions> putDatabaseCapture = newCapture(CaptureType.ALL);
+        mockCloudant = PowerMock.createMock(Cloudant.class);
+        expect(mockCloudant.putDatabase(capture(putDatabaseCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(PowerMock.createMock(Ok.class))).times(3);
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andAnswer(() -> ServiceCallUtils.makeServiceCallWithResult(okResults(2))).times(3);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        List<SinkRecord> records = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            SinkRecord record = record("doc" + i, i);
+            if (i % 3 != 2) {
+                record.headers().addString("region", i % 3 == 0 ? "eu" : "us");
+            }
+            records.add(record);
+        }
+        sinkTask.put(records);
+        sinkTask.flush(Collections.emptyMap());
+        sinkTask.stop();
+
+        verify(mockCloudant);
+        Map<String, List<Object>> idsByDatabase = bulkDocsCapture.getValues().stream().collect(Collectors.toMap(
+                PostBulkDocsOptions::db,
+                options -> options.bulkDocs().docs().stream().map(document -> document.get("_id")).collect(Collectors.toList())));
+        // records without a region header go to cloudant.db
+        Assert.assertEquals(Map.of("test-eu", List.of("doc0", "doc3"), "test-us", List.of("doc1", "doc4"), "foo", List.of("doc2", "doc5")),
+                idsByDatabase);
+        Assert.assertEquals(Set.of("test-eu", "test-us", "foo"),
+                putDatabaseCapture.getValues().stream().map(PutDatabaseOptions::db).collect(Collectors.toSet()));
+    }
+
+    // with more accounts, each document is written to the account its ID hashes to, through that account's client
+    @Test
+    public void testWritesSpreadAcrossAccounts() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.accounts", "second");
+        extraConfig.put("cloudant.accounts.second.cloudant.url", "http://bar");
+        Cloudant secondCloudant = PowerMock.createMock(Cloudant.class);
+        Capture<PostBulkDocsOptions> secondBulkDocsCapture = newCapture(CaptureType.ALL);
+        expect(secondCloudant.putDatabase(anyObject())).andReturn(ServiceCallUtils.makeServiceCallWithResult(PowerMock.createMock(Ok.class)));
+        expect(secondCloudant.postBulkDocs(capture(secondBulkDocsCapture)))
+                .andAnswer(() -> ServiceCallUtils.makeServiceCallWithResult(
+                        okResults(secondBulkDocsCapture.getValue().bulkDocs().docs().size())));
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andAnswer(() -> ServiceCallUtils.makeServiceCallWithResult(
+                        okResults(bulkDocsCapture.getValue().bulkDocs().docs().size())));
+        ClientManagerUtils.addClientToCache(connectionName + "#second", secondCloudant);
+        replay(secondCloudant);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        List<SinkRecord> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            records.add(record("doc" + i, i));
+        }
+        sinkTask.put(records);
+        sinkTask.flush(Collections.emptyMap());
+        sinkTask.stop();
+
+        verify(secondCloudant);
+        AccountRing ring = new AccountRing(List.of("http://foo", "http://bar"));
+        Set<Object> first = new HashSet<>(bulkDocsCapture.getValue().bulkDocs().docs().stream().map(d -> d.get("_id")).collect(Collectors.toList()));
+        Set<Object> second = new HashSet<>(secondBulkDocsCapture.getValue().bulkDocs().docs().stream().map(d -> d.get("_id")).collect(Collectors.toList()));
+        Assert.assertEquals(20, first.size() + second.size());
+        for (SinkRecord record : records) {
+            Assert.assertTrue((ring.accountFor((String) record.key()) == 0 ? first : second).contains(record.key()));
+        }
+    }
+
+    // the partition is added to IDs without one, and each batch holds the documents of as few partitions as possible
+    @Test
+    public void testPartitionKeyAndBatching() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.partition.key", "${header:tenant}");
+        extraConfig.put("cloudant.partition.batching", "true");
+        extraConfig.put("batch.size", "2");
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(2))).times(3);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        List<SinkRecord> records = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            SinkRecord record = record("doc" + i, i);
+            record.headers().addString("tenant", i % 2 == 0 ? "a" : "b");
+            records.add(record);
+        }
+        // already partitioned, and without a partition key
+        records.add(record("c:doc4", 4));
+        records.add(record("doc5", 5));
+        sinkTask.put(records);
+        sinkTask.flush(Collections.emptyMap());
+
+        List<List<Object>> batches = bulkDocsCapture.getValues().stream()
+                .map(options -> options.bulkDocs().docs().stream().map(document -> document.get("_id")).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+        Assert.assertEquals(List.of(List.of("a:doc0", "a:doc2"), List.of("b:doc1", "b:doc3"), List.of("c:doc4", "doc5")), batches);
+    }
+}
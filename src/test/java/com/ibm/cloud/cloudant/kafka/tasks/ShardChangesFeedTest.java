@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.google.gson.Gson;
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.sdk.core.util.GsonSingleton;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ShardChangesFeedTest {
+
+    private static final Gson gson = GsonSingleton.getGson();
+
+    private static ChangesResultItem change(int i) {
+        return gson.fromJson(String.format("{\"seq\":\"%d-s\",\"id\":\"doc%d\",\"changes\":[{\"rev\":\"1-x\"}]}", i, i),
+                ChangesResultItem.class);
+    }
+
+    private static ChangesFeed feedOf(List<ChangesResultItem> changes) {
+        return new ChangesFeed() {
+            @Override
+            public List<ChangesResultItem> next(int max) {
+                return changes;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    // every change is in exactly one shard, and each shard keeps feed order
+    @Test
+    public void testChangesDividedBetweenShards() throws Exception {
+        List<ChangesResultItem> changes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            changes.add(change(i));
+        }
+        Set<String> seen = new HashSet<>();
+        for (int shard = 0; shard < 3; shard++) {
+            List<ChangesResultItem> inShard = new ShardChangesFeed(feedOf(changes), shard, 3).next(100);
+            Assert.assertFalse(inShard.isEmpty());
+            List<ChangesResultItem> inOrder = new ArrayList<>(inShard);
+            inOrder.sort((a, b) -> Integer.compare(changes.indexOf(a), changes.indexOf(b)));
+            Assert.assertEquals(inOrder, inShard);
+            for (ChangesResultItem change : inShard) {
+                Assert.assertEquals(shard, ShardChangesFeed.shardFor(change.getId(), 3));
+                Assert.assertTrue(seen.add(change.getId()));
+            }
+        }
+        Assert.assertEquals(changes.stream().map(ChangesResultItem::getId).collect(Collectors.toSet()), seen);
+    }
+}
@@ -16,6 +16,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.powermock.api.easymock.PowerMock;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -86,6 +87,120 @@ public class SinceOptionTest {
         testOffsetStorageReaderBehaviour(null, configMap, LAST_SEQ_NUM_DEFAULT);
     }
 
+    // a database read by 2 tasks is then read by 3, which each carry on from where the task which got least far got to
+    @Test
+    public void testStoredOffsetAfterMoreTasks() {
+        StoredOffsets offsets = new StoredOffsets(Map.of(
+                partition(null), offset("25-b", 2, 1),
+                partition("1/2"), offset("20-c", 2, 1),
+                partition("1/3"), offset("15-x", 3, 0)));
+        for (int shard = 0; shard < 3; shard++) {
+            assertStoredOffset("20-c", 2, offsets, shard, 3);
+        }
+        // and once they have their own offsets, from those
+        offsets = new StoredOffsets(Map.of(
+                partition(null), offset("30-d", 3, 2),
+                partition("1/2"), offset("20-c", 2, 1),
+                partition("1/3"), offset("35-e", 3, 2)));
+        assertStoredOffset("30-d", 2, offsets, 0, 3);
+        assertStoredOffset("35-e", 2, offsets, 1, 3);
+        // not stored an offset yet, so from cloudant.since rather than from where the others got to
+        assertStoredOffset(null, 2, offsets, 2, 3);
+    }
+
+    // a database read by 1 task is then read by 2, which carry on from its offset
+    @Test
+    public void testStoredOffsetAfterFirstDivided() {
+        StoredOffsets offsets = new StoredOffsets(Map.of(partition(null), offset("10-a")));
+        assertStoredOffset("10-a", 1, offsets, 0, 2);
+        assertStoredOffset("10-a", 1, offsets, 1, 2);
+        assertStoredOffset("10-a", 0, offsets, 0, 1);
+        assertStoredOffset(null, 0, new StoredOffsets(Map.of()), 0, 2);
+    }
+
+    // a database read by 3 tasks is then read by 1, which carries on from where the task which got least far got to,
+    // rather than from an offset left from before the database was divided that way
+    @Test
+    public void testStoredOffsetAfterFewerTasks() {
+        StoredOffsets offsets = new StoredOffsets(Map.of(
+                partition(null), offset("30-d", 3, 1),
+                partition("1/3"), offset("35-e", 3, 1),
+                partition("2/3"), offset("32-f", 3, 1)));
+        assertStoredOffset("30-d", 2, offsets, 0, 1);
+        // and once it has got further, from its own offset
+        offsets = new StoredOffsets(Map.of(
+                partition(null), offset("40-g", 1, 2),
+                partition("1/3"), offset("35-e", 3, 1),
+                partition("2/3"), offset("32-f", 3, 1)));
+        assertStoredOffset("40-g", 2, offsets, 0, 1);
+    }
+
+    // when a task before never stored an offset, or only left one from an earlier generation, the tasks start from
+    // cloudant.since, producing changes again rather than skipping the changes that task didn't get to
+    @Test
+    public void testStoredOffsetMissingForTaskBefore() {
+        StoredOffsets offsets = new StoredOffsets(Map.of(
+                partition(null), offset("30-d", 3, 1),
+                partition("1/3"), offset("35-e", 3, 1)));
+        assertStoredOffset(null, 2, offsets, 0, 2);
+        offsets = new StoredOffsets(Map.of(
+                partition(null), offset("30-d", 3, 3),
+                partition("1/3"), offset("35-e", 3, 3),
+                partition("2/3"), offset("12-f", 3, 1)));
+        assertStoredOffset(null, 4, offsets, 1, 2);
+        // and a task with the same number of tasks doesn't carry on from an offset of an earlier generation
+        assertStoredOffset(null, 3, offsets, 2, 3);
+    }
+
+    private static void assertStoredOffset(String sequence, int generation, OffsetStorageReader offsets, int shard, int shards) {
+        SourceChangesTask.StoredOffset stored = SourceChangesTask.storedOffset(offsets, partition(null), shard, shards);
+        Assert.assertEquals(sequence, stored.sequence);
+        Assert.assertEquals(generation, stored.generation);
+    }
+
+    private static Map<String, String> partition(String shard) {
+        Map<String, String> partition = new HashMap<>();
+        partition.put(InterfaceConst.URL, "http://foo");
+        partition.put(InterfaceConst.DB, DB_NAME);
+        if (shard != null) {
+            partition.put(InterfaceConst.SHARD, shard);
+        }
+        return partition;
+    }
+
+    private static Map<String, Object> offset(String seq) {
+        return Collections.singletonMap(InterfaceConst.LAST_CHANGE_SEQ, seq);
+    }
+
+    private static Map<String, Object> offset(String seq, int shards, int generation) {
+        return Map.of(InterfaceConst.LAST_CHANGE_SEQ, seq,
+                InterfaceConst.TASK_COUNT, String.valueOf(shards),
+                InterfaceConst.TASK_GENERATION, String.valueOf(generation));
+    }
+
+    // offsets stored by source partition
+    private static class StoredOffsets implements OffsetStorageReader {
+        private final Map<Map<String, String>, Map<String, Object>> offsets;
+
+        private StoredOffsets(Map<Map<String, String>, Map<String, Object>> offsets) {
+            this.offsets = offsets;
+        }
+
+        @Override
+        public <T> Map<String, Object> offset(Map<String, T> partition) {
+            return offsets.get(partition);
+        }
+
+        @Override
+        public <T> Map<Map<String, T>, Map<String, Object>> offsets(Collection<Map<String, T>> partitions) {
+            Map<Map<String, T>, Map<String, Object>> found = new HashMap<>();
+            for (Map<String, T> partition : partitions) {
+                found.put(partition, offsets.get(partition));
+            }
+            return found;
+        }
+    }
+
     // helper method, test offset storage reader behaviour parameterised on:
     // - offset returned from offset storage reader
     // - config map on task
@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.ibm.cloud.cloudant.kafka.caching.ClientManagerUtils;
+import com.ibm.cloud.cloudant.kafka.utils.InterfaceConst;
+import com.ibm.cloud.cloudant.v1.Cloudant;
+import com.ibm.cloud.cloudant.v1.model.ChangesResult;
+import com.ibm.cloud.cloudant.v1.model.PostChangesOptions;
+import com.ibm.cloud.sdk.core.http.Response;
+import com.ibm.cloud.sdk.core.http.ServiceCall;
+import com.ibm.cloud.sdk.core.service.exception.NotFoundException;
+import com.ibm.cloud.sdk.core.util.GsonSingleton;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.source.SourceTaskContext;
+import org.apache.kafka.connect.storage.OffsetStorageReader;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+
+public class SourceDatabasesTest {
+
+    private static final String CONNECTION_NAME = "_mock_databases";
+    private static final String DELETED_CONNECTION_NAME = "_mock_databases_deleted";
+
+    private static PostChangesOptions options(String db, String since) {
+        return new PostChangesOptions.Builder()
+                .feed(PostChangesOptions.Feed.NORMAL)
+                .db(db)
+                .includeDocs(true)
+                .since(since)
+                .limit(InterfaceConst.DEFAULT_BATCH_SIZE_SOURCE)
+                .build();
+    }
+
+    // mocked here rather than with PowerMock, which would leave them for another test's replayAll
+    @SuppressWarnings("unchecked")
+    private static <T> ServiceCall<T> serviceCall(T result) {
+        Response<T> response = EasyMock.createMock(Response.class);
+        expect(response.getResult()).andReturn(result).anyTimes();
+        ServiceCall<T> call = EasyMock.createMock(ServiceCall.class);
+        expect(call.execute()).andReturn(response).anyTimes();
+        EasyMock.replay(response, call);
+        return call;
+    }
+
+    private static ChangesResult changes(String lastSeq, String... seqs) {
+        String results = Arrays.stream(seqs)
+                .map(seq -> String.format("{\"seq\":\"%s\",\"id\":\"doc\",\"changes\":[{\"rev\":\"1-x\"}]," +
+                        "\"doc\":{\"_id\":\"doc\",\"_rev\":\"1-x\"}}", seq))
+                .collect(Collectors.joining(","));
+        return GsonSingleton.getGson().fromJson(String.format("{\"results\":[%s],\"last_seq\":\"%s\",\"pending\":0}",
+                results, lastSeq), ChangesResult.class);
+    }
+
+    // one change, then none
+    private static void expectChange(Cloudant mockCloudant, String db, AtomicInteger inFlight, AtomicInteger maxInFlight) {
+        expect(mockCloudant.postChanges(options(db, "0"))).andAnswer(() -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            inFlight.decrementAndGet();
+            return serviceCall(changes("1-" + db, "1-" + db));
+        });
+        expect(mockCloudant.postChanges(options(db, "1-" + db))).andReturn(serviceCall(changes("1-" + db))).anyTimes();
+    }
+
+    private static SourceChangesTask startTask(String name, Cloudant mockCloudant, List<String> dbs, String concurrency) {
+        SourceTaskContext mockContext = EasyMock.createMock(SourceTaskContext.class);
+        OffsetStorageReader mockOsr = EasyMock.createMock(OffsetStorageReader.class);
+        expect(mockContext.offsetStorageReader()).andReturn(mockOsr).anyTimes();
+        expect(mockOsr.offset(anyObject())).andReturn(null).anyTimes();
+        EasyMock.replay(mockCloudant, mockContext, mockOsr);
+        ClientManagerUtils.addClientToCache(name, mockCloudant);
+
+        Map<String, String> props = new HashMap<>();
+        props.put("name", name);
+        props.put(InterfaceConst.URL, "http://foo");
+        props.put(InterfaceConst.DB, dbs.get(0));
+        props.put(InterfaceConst.TOPIC, "foo");
+        props.put(InterfaceConst.TASK_DBS, String.join(",", dbs));
+        props.put(InterfaceConst.DBS_POLL_CONCURRENCY, concurrency);
+        SourceChangesTask task = new SourceChangesTask();
+        task.initialize(mockContext);
+        task.start(props);
+        return task;
+    }
+
+    private static List<SourceRecord> pollFor(SourceChangesTask task, int count) throws InterruptedException {
+        List<SourceRecord> records = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (records.size() < count && System.currentTimeMillis() < deadline) {
+            records.addAll(task.poll());
+        }
+        return records;
+    }
+
+    private static long pollerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.isAlive() && t.getName().startsWith("cloudant-changes-" + CONNECTION_NAME + "-"))
+                .count();
+    }
+
+    // a task given many databases produces the changes of each with its own source partition and offsets, reading
+    // them with no more threads or concurrent requests than cloudant.dbs.poll.concurrency
+    @Test
+    public void testChangesFromEachDatabase() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        EasyMock.makeThreadSafe(mockCloudant, false);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<String> dbs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            dbs.add("db" + i);
+            expectChange(mockCloudant, "db" + i, inFlight, maxInFlight);
+        }
+        SourceChangesTask task = startTask(CONNECTION_NAME, mockCloudant, dbs, "3");
+        try {
+            List<SourceRecord> records = pollFor(task, dbs.size());
+            Assert.assertEquals(dbs.size(), records.size());
+            Set<String> polled = records.stream().map(r -> (String) r.sourcePartition().get(InterfaceConst.DB))
+                    .collect(Collectors.toCollection(TreeSet::new));
+            Assert.assertEquals(new TreeSet<>(dbs), polled);
+            for (SourceRecord record : records) {
+                Assert.assertEquals("1-" + record.sourcePartition().get(InterfaceConst.DB),
+                        record.sourceOffset().get(InterfaceConst.LAST_CHANGE_SEQ));
+            }
+            Assert.assertEquals(3, pollerThreads());
+            Assert.assertTrue(maxInFlight.get() <= 3);
+        } finally {
+            task.stop();
+        }
+    }
+
+    // a database deleted after it was assigned is no longer read, and the others carry on
+    @Test
+    public void testDeletedDatabaseDropped() throws Exception {
+        Cloudant mockCloudant = EasyMock.createMock(Cloudant.class);
+        okhttp3.Response response = new okhttp3.Response.Builder()
+                .request(new Request.Builder().url("http://foo/gone/_changes").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(404)
+                .message("Not Found")
+                .body(ResponseBody.create("{\"error\":\"not_found\"}", MediaType.get("application/json")))
+                .build();
+        expect(mockCloudant.postChanges(options("gone", "0"))).andThrow(new NotFoundException(response));
+        expect(mockCloudant.postChanges(options("a", "0"))).andReturn(serviceCall(changes("1-a", "1-a")));
+        expect(mockCloudant.postChanges(options("a", "1-a"))).andReturn(serviceCall(changes("2-a", "2-a")));
+        expect(mockCloudant.postChanges(options("a", "2-a"))).andReturn(serviceCall(changes("2-a"))).anyTimes();
+        SourceChangesTask task = startTask(DELETED_CONNECTION_NAME, mockCloudant, List.of("a", "gone"), "1");
+        try {
+            List<SourceRecord> records = pollFor(task, 2);
+            Assert.assertEquals(List.of("1-a", "2-a"), records.stream()
+                    .map(r -> r.sourceOffset().get(InterfaceConst.LAST_CHANGE_SEQ)).collect(Collectors.toList()));
+            // the deleted database was only requested once
+            EasyMock.verify(mockCloudant);
+        } finally {
+            task.stop();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.header.ConnectHeaders;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SpillFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Schema ADDRESS = SchemaBuilder.struct().name("address")
+            .field("street", Schema.STRING_SCHEMA)
+            .field("tags", SchemaBuilder.array(Schema.STRING_SCHEMA).optional().build())
+            .build();
+
+    private static final Schema PERSON = SchemaBuilder.struct().name("person").version(2)
+            .field("_id", Schema.STRING_SCHEMA)
+            .field("age", Schema.OPTIONAL_INT32_SCHEMA)
+            .field("country", SchemaBuilder.string().optional().defaultValue("uk").build())
+            .field("balance", Decimal.schema(2))
+            .field("address", ADDRESS)
+            .field("scores", SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.FLOAT64_SCHEMA).build())
+            .build();
+
+    private static SinkRecord structRecord(String id, long offset) {
+        Struct value = new Struct(PERSON)
+                .put("_id", id)
+                .put("balance", new BigDecimal("12.34"))
+                .put("address", new Struct(ADDRESS).put("street", "High St").put("tags", List.of("home")))
+                .put("scores", Map.of("x", 1.5));
+        ConnectHeaders headers = new ConnectHeaders();
+        headers.addString("cloudant_doc_id", id);
+        return new SinkRecord("renamed", 0, Schema.STRING_SCHEMA, id, PERSON, value, offset, 1000L + offset,
+                TimestampType.CREATE_TIME, headers, "test", 3, offset + 100);
+    }
+
+    @Test
+    public void testRecordsReadBackInOrder() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("test.spill");
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("_id", "m");
+        map.put("nested", Map.of("n", 1L));
+        map.put("nothing", null);
+        SinkRecord mapRecord = new SinkRecord("test", 1, null, null, null, map, 7);
+        SinkRecord rawRecord = new SinkRecord("test", 1, null, null, null, "{\"_id\":\"r\"}".getBytes(StandardCharsets.UTF_8), 8);
+        try (SpillFile spill = new SpillFile(path)) {
+            spill.append(List.of(structRecord("a", 0), structRecord("b", 1)));
+            spill.append(List.of(mapRecord, rawRecord));
+            Assert.assertEquals(4, spill.records());
+
+            List<SinkRecord> read = spill.read(3);
+            Assert.assertEquals(3, read.size());
+            Assert.assertEquals(structRecord("a", 0), read.get(0));
+            Assert.assertEquals(structRecord("b", 1), read.get(1));
+            // the same schema instance for both
+            Assert.assertSame(read.get(0).valueSchema(), read.get(1).valueSchema());
+            Assert.assertEquals("uk", ((Struct) read.get(0).value()).get("country"));
+            Assert.assertEquals("test", read.get(0).originalTopic());
+            Assert.assertEquals(101, read.get(1).originalKafkaOffset());
+            Assert.assertEquals(mapRecord, read.get(2));
+
+            read = spill.read(3);
+            Assert.assertEquals(1, read.size());
+            Assert.assertArrayEquals((byte[]) rawRecord.value(), (byte[]) read.get(0).value());
+            Assert.assertTrue(spill.isEmpty());
+            Assert.assertEquals(0, Files.size(path));
+
+            // and appended to again after it is emptied
+            spill.append(List.of(structRecord("c", 2)));
+            Assert.assertEquals(List.of(structRecord("c", 2)), spill.read(10));
+        }
+        Assert.assertFalse(Files.exists(path));
+    }
+
+    @Test
+    public void testUnsupportedValueNotAppended() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("test.spill");
+        try (SpillFile spill = new SpillFile(path)) {
+            SinkRecord unsupported = new SinkRecord("test", 0, null, null, null, Map.of("x", new Object()), 1);
+            try {
+                spill.append(List.of(structRecord("a", 0), unsupported));
+                Assert.fail("Expected DataException");
+            } catch (DataException de) {
+                // expected
+            }
+            Assert.assertTrue(spill.isEmpty());
+            spill.append(List.of(structRecord("b", 2)));
+            Assert.assertEquals(List.of(structRecord("b", 2)), spill.read(10));
+        }
+    }
+
+    // records which are consumed again are dropped from the file
+    @Test
+    public void testClearDropsUnreadRecords() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("test.spill");
+        try (SpillFile spill = new SpillFile(path)) {
+            spill.append(List.of(structRecord("a", 0), structRecord("b", 1)));
+            spill.append(List.of(new SinkRecord("test", 1, null, null, null, null, 2)));
+            Assert.assertEquals(Set.of(new TopicPartition("test", 3), new TopicPartition("test", 1)), spill.partitions());
+            Assert.assertEquals(1, spill.read(1).size());
+
+            spill.clear();
+            Assert.assertTrue(spill.isEmpty());
+            Assert.assertEquals(0, spill.bytes());
+            Assert.assertTrue(spill.partitions().isEmpty());
+            Assert.assertEquals(0, Files.size(path));
+            spill.append(List.of(structRecord("c", 2)));
+            Assert.assertEquals(List.of(structRecord("c", 2)), spill.read(10));
+        }
+    }
+}
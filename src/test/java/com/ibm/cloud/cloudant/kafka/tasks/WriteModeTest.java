@@ -0,0 +1,290 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.tasks;
+
+import com.google.gson.Gson;
+import com.ibm.cloud.cloudant.kafka.mappers.DocumentToSourceRecord;
+import com.ibm.cloud.cloudant.kafka.utils.ServiceCallUtils;
+import com.ibm.cloud.cloudant.v1.model.BulkGetResult;
+import com.ibm.cloud.cloudant.v1.model.ChangesResultItem;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import com.ibm.cloud.cloudant.v1.model.DocumentResult;
+import com.ibm.cloud.cloudant.v1.model.PostAllDocsOptions;
+import com.ibm.cloud.cloudant.v1.model.PostBulkDocsOptions;
+import com.ibm.cloud.sdk.core.util.GsonSingleton;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.metrics.PluginMetrics;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaAndValue;
+import org.apache.kafka.connect.json.JsonConverter;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.niceMock;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+// tests of the upsert and replicate write modes and tombstone deletions against a mock client
+@SuppressWarnings("unchecked")
+public class WriteModeTest extends MockSinkTest {
+
+    private static final Gson gson = GsonSingleton.getGson();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // upserts write over the current revision, and look it up again for documents which conflict
+    @Test
+    public void testUpsertResolvesRevisionsAndRetriesConflicts() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.mode", "upsert");
+        Capture<PostAllDocsOptions> allDocsCapture = newCapture(CaptureType.ALL);
+        expect(mockCloudant.postAllDocs(capture(allDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(allDocsResult("a", "1-a")))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(allDocsResult("a", "2-a")));
+        List<DocumentResult> firstResults = okResults(1);
+        firstResults.add(0, failedResult("conflict"));
+        // the documents are updated for the retry, so note the revisions that were sent the first time
+        List<Object> firstRevs = new ArrayList<>();
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andAnswer(() -> {
+                    for (Document doc : bulkDocsCapture.getValue().bulkDocs().docs()) {
+                        firstRevs.add(doc.get("_rev"));
+                    }
+                    return ServiceCallUtils.makeServiceCallWithResult(firstResults);
+                })
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(1)));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0), record("b", 1)));
+        sinkTask.flush(Collections.emptyMap());
+
+        Assert.assertEquals(List.of("a", "b"), allDocsCapture.getValues().get(0).keys());
+        Assert.assertEquals(List.of("a"), allDocsCapture.getValues().get(1).keys());
+        Assert.assertEquals(Arrays.asList("1-a", null), firstRevs);
+        List<Document> retried = bulkDocsCapture.getValues().get(1).bulkDocs().docs();
+        Assert.assertEquals(1, retried.size());
+        Assert.assertEquals("2-a", retried.get(0).get("_rev"));
+    }
+
+    // revisions of documents we've written are remembered, so updating them again doesn't look them up
+    @Test
+    public void testUpsertUsesRevisionCache() {
+        PluginMetrics mockMetrics = niceMock(PluginMetrics.class);
+        expect(mockContext.pluginMetrics()).andReturn(mockMetrics);
+        replay(mockMetrics);
+        assertRevisionCacheUsed();
+    }
+
+    // the revision cache works the same on versions of Kafka Connect without plugin metrics
+    @Test
+    public void testRevisionCacheWithoutPluginMetrics() {
+        expect(mockContext.pluginMetrics()).andThrow(new NoSuchMethodError("pluginMetrics"));
+        assertRevisionCacheUsed();
+    }
+
+    private void assertRevisionCacheUsed() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.mode", "upsert");
+        extraConfig.put("cloudant.rev.cache.size", "10");
+        expect(mockCloudant.postAllDocs(anyObject()))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(allDocsResult()));
+        DocumentResult written = mock(DocumentResult.class);
+        expect(written.isOk()).andReturn(Boolean.TRUE).anyTimes();
+        expect(written.getId()).andReturn("a").anyTimes();
+        expect(written.getRev()).andReturn("1-a").anyTimes();
+        replay(written);
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(List.of(written))).times(2);
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0)));
+        sinkTask.flush(Collections.emptyMap());
+        sinkTask.put(List.of(record("a", 1)));
+        sinkTask.flush(Collections.emptyMap());
+
+        // only one _all_docs request
+        verify(mockCloudant);
+        Assert.assertEquals("1-a", bulkDocsCapture.getValues().get(1).bulkDocs().docs().get(0).get("_rev"));
+    }
+
+    // the revision cache is saved when offsets are committed, so a task which doesn't stop cleanly still has it
+    @Test
+    public void testRevisionCacheSavedOnCommit() throws Exception {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.mode", "upsert");
+        extraConfig.put("cloudant.rev.cache.size", "10");
+        extraConfig.put("cloudant.rev.cache.dir", folder.getRoot().toString());
+        expect(mockContext.pluginMetrics()).andThrow(new NoSuchMethodError("pluginMetrics"));
+        expect(mockCloudant.postAllDocs(anyObject()))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(allDocsResult()));
+        DocumentResult written = mock(DocumentResult.class);
+        expect(written.isOk()).andReturn(Boolean.TRUE).anyTimes();
+        expect(written.getId()).andReturn("a").anyTimes();
+        expect(written.getRev()).andReturn("1-a").anyTimes();
+        replay(written);
+        expect(mockCloudant.postBulkDocs(anyObject()))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(List.of(written)));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0)));
+        sinkTask.preCommit(Collections.singletonMap(tp, new OffsetAndMetadata(1)));
+
+        RevisionCache saved = new RevisionCache(10);
+        Assert.assertTrue(saved.load(folder.getRoot().toPath().resolve(connectionName + "-0.revs")));
+        Assert.assertEquals("1-a", saved.get("a"));
+    }
+
+    // tombstones delete their documents in the same request as other writes, with revisions looked up together
+    @Test
+    public void testTombstonesDeleteDocuments() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.tombstone.delete", "true");
+        Capture<PostAllDocsOptions> allDocsCapture = newCapture();
+        expect(mockCloudant.postAllDocs(capture(allDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(allDocsResult("b", "3-b", "c", "1-c")));
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(3)));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(record("a", 0),
+                new SinkRecord("test", 0, null, "b", null, null, 1),
+                new SinkRecord("test", 0, null, "c", null, null, 2)));
+        sinkTask.flush(Collections.emptyMap());
+
+        Assert.assertEquals(List.of("b", "c"), allDocsCapture.getValue().keys());
+        List<Document> docs = bulkDocsCapture.getValue().bulkDocs().docs();
+        Assert.assertEquals(3, docs.size());
+        Assert.assertNull(docs.get(0).get("_rev"));
+        Assert.assertEquals("b", docs.get(1).get("_id"));
+        Assert.assertEquals("3-b", docs.get(1).get("_rev"));
+        Assert.assertEquals(true, docs.get(1).get("_deleted"));
+        Assert.assertEquals("1-c", docs.get(2).get("_rev"));
+        Assert.assertEquals(true, docs.get(2).get("_deleted"));
+    }
+
+    // a tombstone with a numeric key deletes the document with that number as its ID, rather than writing an empty
+    // document
+    @Test
+    public void testTombstoneWithNumericKey() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.tombstone.delete", "true");
+        Capture<PostAllDocsOptions> allDocsCapture = newCapture();
+        expect(mockCloudant.postAllDocs(capture(allDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(allDocsResult("42", "2-a")));
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(okResults(1)));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        sinkTask.put(List.of(new SinkRecord("test", 0, Schema.INT32_SCHEMA, 42, null, null, 0)));
+        sinkTask.flush(Collections.emptyMap());
+
+        Assert.assertEquals(List.of("42"), allDocsCapture.getValue().keys());
+        Document deletion = bulkDocsCapture.getValue().bulkDocs().docs().get(0);
+        Assert.assertEquals("42", deletion.get("_id"));
+        Assert.assertEquals("2-a", deletion.get("_rev"));
+        Assert.assertEquals(true, deletion.get("_deleted"));
+    }
+
+    // replicated revisions are written as they are, and only failed documents are in the results
+    @Test
+    public void testReplicateWritesWithoutNewEdits() {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.mode", "replicate");
+        extraConfig.put("cloudant.write.retry.backoff.ms", "1");
+        DocumentResult throttled = mock(DocumentResult.class);
+        expect(throttled.getId()).andReturn("b").anyTimes();
+        expect(throttled.isOk()).andReturn(null).anyTimes();
+        expect(throttled.getError()).andReturn("too_many_requests").anyTimes();
+        replay(throttled);
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(List.of(throttled)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(List.of()));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        List<SinkRecord> records = new ArrayList<>();
+        for (String id : List.of("a", "b", "c")) {
+            SinkRecord record = record(id, records.size());
+            ((Map<String, Object>) record.value()).put("_rev", "2-" + id);
+            ((Map<String, Object>) record.value()).put("_revisions", Map.of("start", 2, "ids", List.of(id, "x")));
+            records.add(record);
+        }
+        sinkTask.put(records);
+        sinkTask.flush(Collections.emptyMap());
+
+        verify(mockCloudant);
+        List<PostBulkDocsOptions> requests = bulkDocsCapture.getValues();
+        Assert.assertEquals(Boolean.FALSE, requests.get(0).bulkDocs().newEdits());
+        Assert.assertEquals(3, requests.get(0).bulkDocs().docs().size());
+        // only the throttled document is retried, with its revision unchanged
+        Assert.assertEquals(1, requests.get(1).bulkDocs().docs().size());
+        Assert.assertEquals("2-b", requests.get(1).bulkDocs().docs().get(0).get("_rev"));
+    }
+
+    // a change got with _bulk_get keeps its revision history through the converters and is replicated with it
+    @Test
+    public void testReplicateSourceRecordWithRevisions() throws Exception {
+        Map<String, String> extraConfig = new HashMap<>();
+        extraConfig.put("cloudant.write.mode", "replicate");
+        expect(mockCloudant.postBulkGet(anyObject())).andReturn(ServiceCallUtils.makeServiceCallWithResult(
+                gson.fromJson("{\"results\":[{\"id\":\"a\",\"docs\":[{\"ok\":{\"_id\":\"a\",\"_rev\":\"3-c\","
+                        + "\"_revisions\":{\"start\":3,\"ids\":[\"c\",\"b\",\"a\"]},\"n\":1}}]}]}", BulkGetResult.class)));
+        expect(mockCloudant.postBulkDocs(capture(bulkDocsCapture)))
+                .andReturn(ServiceCallUtils.makeServiceCallWithResult(List.of()));
+        SinkTask sinkTask = startTask(extraConfig);
+
+        ChangesResultItem change = gson.fromJson("{\"seq\":\"1-s\",\"id\":\"a\",\"changes\":[{\"rev\":\"3-c\"}]}",
+                ChangesResultItem.class);
+        ChangesFeed feed = new BulkGetChangesFeed(mockCloudant, "foo",
+                BulkGetChangesFeedTest.feedOf(List.of(List.of(change))), 1);
+        SourceRecord sourceRecord;
+        try {
+            sourceRecord = new DocumentToSourceRecord(Collections.emptyMap(), seq -> Collections.emptyMap())
+                    .apply("test", feed.next(1).get(0));
+        } finally {
+            feed.close();
+        }
+        JsonConverter converter = new JsonConverter();
+        converter.configure(Collections.singletonMap("schemas.enable", false), false);
+        SchemaAndValue value = converter.toConnectData("test",
+                converter.fromConnectData("test", sourceRecord.valueSchema(), sourceRecord.value()));
+        sinkTask.put(List.of(new SinkRecord("test", 0, null, null, value.schema(), value.value(), 0)));
+        sinkTask.flush(Collections.emptyMap());
+
+        verify(mockCloudant);
+        Document document = bulkDocsCapture.getValue().bulkDocs().docs().get(0);
+        Assert.assertEquals("3-c", document.get("_rev"));
+        Map<String, Object> revisions = (Map<String, Object>) document.get("_revisions");
+        Assert.assertEquals(List.of("c", "b", "a"), revisions.get("ids"));
+        Assert.assertEquals(3L, ((Number) revisions.get("start")).longValue());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.ibm.cloud.cloudant.kafka.utils;
+
+import com.google.gson.Gson;
+import com.ibm.cloud.cloudant.v1.model.Document;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JsonSizeEstimatorTest {
+
+    private static long serializedSize(Object o) {
+        return new Gson().toJson(o).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // estimates may over-count separators, but should never be more than one byte per value out
+    private static void assertClose(long expected, long actual, int values) {
+        assertTrue(String.format("expected %d but was %d", expected, actual),
+                actual >= expected && actual <= expected + values);
+    }
+
+    @Test
+    public void testScalars() {
+        assertEquals(serializedSize("hello"), JsonSizeEstimator.estimate("hello"));
+        assertEquals(serializedSize("quote\" and \\ and é and 😀"),
+                JsonSizeEstimator.estimate("quote\" and \\ and é and 😀"));
+        assertEquals(serializedSize(12345L), JsonSizeEstimator.estimate(12345L));
+        assertEquals(serializedSize(1.5d), JsonSizeEstimator.estimate(1.5d));
+        assertEquals(serializedSize(true), JsonSizeEstimator.estimate(true));
+        assertEquals(4, JsonSizeEstimator.estimate((Object) null));
+    }
+
+    @Test
+    public void testNested() {
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("list", Arrays.asList(1, 2, 3));
+        inner.put("string", "value");
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("_id", "doc1");
+        map.put("inner", inner);
+        assertClose(serializedSize(map), JsonSizeEstimator.estimate(map), 7);
+
+        Document document = new Document();
+        document.setProperties(new HashMap<>(map));
+        assertClose(serializedSize(map), JsonSizeEstimator.estimate(document), 7);
+    }
+
+    @Test
+    public void testStruct() {
+        Schema schema = SchemaBuilder.struct()
+                .field("_id", Schema.STRING_SCHEMA)
+                .field("number", Schema.INT32_SCHEMA)
+                .build();
+        Struct struct = new Struct(schema).put("_id", "doc1").put("number", 42);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("_id", "doc1");
+        map.put("number", 42);
+        assertEquals(JsonSizeEstimator.estimate(map), JsonSizeEstimator.estimate(struct));
+    }
+
+    // with passthrough, raw JSON is written as it is, and only other values are serialized
+    @Test
+    public void testPassthroughRawJson() {
+        String json = "{\"_id\":\"doc1\",\"name\":\"é\"}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        assertEquals(bytes.length, JsonSizeEstimator.estimate(bytes, true));
+        assertEquals(bytes.length, JsonSizeEstimator.estimate(json, true));
+        assertEquals(JsonSizeEstimator.estimate(bytes), JsonSizeEstimator.estimate(bytes, false));
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("_id", "doc1");
+        assertEquals(JsonSizeEstimator.estimate(map), JsonSizeEstimator.estimate(map, true));
+    }
+}
@@ -22,15 +22,19 @@ import org.junit.Test;
 
 import java.util.HashMap;
 
+import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.ACCOUNTS;
 import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.APIKEY;
 import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.AUTH_TYPE;
 import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.BEARER_TOKEN;
+import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.BUFFER_SPILL_DIR;
 import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.DB;
+import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.DB_ROUTE;
 import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.IAM_PROFILE_ID;
 import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.PASSWORD;
 import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.TOPIC;
 import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.URL;
 import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.USERNAME;
+import static com.ibm.cloud.cloudant.kafka.utils.InterfaceConst.WRITE_ASYNC;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -330,6 +334,51 @@ public class ValidationTest {
                 "At least one of 'cloudant.iam.profile.id' or 'cloudant.iam.profile.crn' must be set when using 'cloudant.auth.type' of 'vpc'");
     }
 
+    @Test
+    public void validatesDatabaseRoute() {
+        HashMap<String, String> map = new HashMap<String, String>();
+        map.put(AUTH_TYPE, "noauth");
+        map.put(URL, "https://somewhere");
+        map.put(DB, "animaldb");
+        map.put(TOPIC, "foo");
+        map.put(DB_ROUTE, "animals-${topic}-${header:region}-${field:kind}");
+        assertNoErrorMessages(new ConfigValidator(map, CONFIG_DEF).validate());
+
+        map.put(DB_ROUTE, "animals-${partition}");
+        assertHasErrorMessage(new ConfigValidator(map, CONFIG_DEF).validate(), DB_ROUTE, "Unknown placeholder ${partition}");
+    }
+
+    @Test
+    public void validatesAccountsHaveUrls() {
+        HashMap<String, String> map = new HashMap<String, String>();
+        map.put(AUTH_TYPE, "noauth");
+        map.put(URL, "https://somewhere");
+        map.put(DB, "animaldb");
+        map.put(TOPIC, "foo");
+        map.put(ACCOUNTS, "second, third");
+        map.put(ACCOUNTS + ".second." + URL, "https://elsewhere");
+        map.put(ACCOUNTS + ".third." + URL, "https://another");
+        assertNoErrorMessages(new ConfigValidator(map, CONFIG_DEF).validate());
+
+        map.remove(ACCOUNTS + ".third." + URL);
+        assertHasErrorMessage(new ConfigValidator(map, CONFIG_DEF).validate(), ACCOUNTS, "'cloudant.accounts.third.cloudant.url' must be set");
+    }
+
+    @Test
+    public void validatesSpillNotUsedWithAsyncWrites() {
+        HashMap<String, String> map = new HashMap<String, String>();
+        map.put(AUTH_TYPE, "noauth");
+        map.put(URL, "https://somewhere");
+        map.put(DB, "animaldb");
+        map.put(TOPIC, "foo");
+        map.put(BUFFER_SPILL_DIR, "/tmp");
+        assertNoErrorMessages(new ConfigValidator(map, CONFIG_DEF).validate());
+
+        map.put(WRITE_ASYNC, "true");
+        assertHasErrorMessage(new ConfigValidator(map, CONFIG_DEF).validate(), BUFFER_SPILL_DIR,
+                "'buffer.spill.dir' can't be set when using 'cloudant.write.async' of 'true'");
+    }
+
     private static void assertHasErrorMessage(Config config, String property, String msg) {
         for (ConfigValue configValue : config.configValues()) {
             if (configValue.name().equals(property)) {